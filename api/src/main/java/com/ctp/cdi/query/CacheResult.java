@@ -0,0 +1,53 @@
+package com.ctp.cdi.query;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the result of a query method per parameter values, so repeated calls
+ * do not hit the database. Applies to annotated queries and method expressions
+ * returning a list or a single result, and is ignored for {@link QueryResult},
+ * streaming and modifying methods.
+ * 
+ * Cached results are dropped whenever entities of the DAO entity type or one of
+ * the {@link #invalidatedBy()} types are saved or removed through a DAO, or a
+ * {@link Modifying} query of such a DAO is executed. Within a JTA transaction,
+ * they are dropped again after the transaction completed, and the transaction
+ * does not use the cache after such a write. Changes made otherwise are only
+ * picked up after the {@link #timeToLive()} expired.
+ * 
+ * Entities are cached by identifier only, like a provider query cache does. A
+ * cached result is resolved again with the caller's entity manager, so each
+ * caller gets the instances of its own persistence context. This might load
+ * the entities one by one if they are neither in the persistence context nor
+ * in the provider's second level cache.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheResult {
+
+    /**
+     * Maximum number of cached results for the method. The least recently used
+     * result is evicted when exceeded.
+     */
+    int maxSize() default 1000;
+
+    /**
+     * Time after which a cached result expires. Never expires when zero or less.
+     */
+    long timeToLive() default 0;
+
+    /**
+     * Unit of the {@link #timeToLive()}.
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * Further entity types the result depends on, e.g. through joins.
+     */
+    Class<?>[] invalidatedBy() default {};
+
+}
@@ -0,0 +1,28 @@
+package com.ctp.cdi.query;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configures streaming for query methods returning a {@link ResultCursor}.
+ * Optional, defaults apply if not present.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cursor {
+
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    int fetchSize() default 100;
+
+    /**
+     * Clear the persistence context each time this number of rows has been read,
+     * so loaded entities can be garbage collected. Disabled when zero or less.
+     * Note that this also detaches any other entity loaded in the persistence context.
+     */
+    int clearEvery() default 0;
+
+}
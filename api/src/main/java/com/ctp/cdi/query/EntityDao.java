@@ -1,6 +1,7 @@
 package com.ctp.cdi.query;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -28,12 +29,85 @@ public interface EntityDao<E, PK extends Serializable> {
      * @return                  Returns the modified entity.
      */
     E saveAndFlush(E entity);
+
+    /**
+     * {@link #save(Object)}s all given entities in batches of 50. See {@link #saveAll(Iterable, int)}.
+     * @param entities          Entities to save.
+     */
+    void saveAll(Iterable<E> entities);
+
+    /**
+     * {@link #save(Object)}s all given entities. Flushes and clears the persistence context
+     * after each batch, so it does not grow with the number of entities saved. Note that
+     * this detaches all entities in the persistence context, including the saved ones.
+     * JDBC batching has to be enabled on the persistence unit for some providers,
+     * e.g. with {@code hibernate.jdbc.batch_size} for Hibernate.
+     * @param entities          Entities to save.
+     * @param batchSize         Number of entities to save before flushing and clearing the
+     *                          persistence context. Zero or less to never flush or clear.
+     */
+    void saveAll(Iterable<E> entities, int batchSize);
+
+    /**
+     * {@link #save(Object)}s all given entities and flushes the persistence context once afterwards.
+     * The entities stay managed, use {@link #saveAll(Iterable, int)} for large amounts of entities.
+     * @param entities          Entities to save.
+     * @return                  Returns the modified entities.
+     */
+    List<E> saveAndFlushAll(Iterable<E> entities);
     
     /**
      * Convenience access to {@link EntityManager#remove(Object)}.
      * @param entity            Entity to remove.
      */
     void remove(E entity);
+
+    /**
+     * Removes all given entities in batches of 50. See {@link #removeAll(Iterable, int)}.
+     * @param entities          Entities to remove.
+     */
+    void removeAll(Iterable<E> entities);
+
+    /**
+     * Removes all given entities, which may also be detached. Flushes and clears the
+     * persistence context after each batch, see {@link #saveAll(Iterable, int)}.
+     * @param entities          Entities to remove.
+     * @param batchSize         Number of entities to remove before flushing and clearing the
+     *                          persistence context. Zero or less to never flush or clear.
+     */
+    void removeAll(Iterable<E> entities, int batchSize);
+
+    /**
+     * Bulk delete by example - removes all entities matching the example in a single
+     * statement, without loading them. Like other bulk operations, this bypasses the
+     * persistence context and lifecycle callbacks.
+     * @param example           Sample entity.
+     * @param attributes        Which attributes to consider for the query. At least one is required.
+     * @return                  Number of entities removed.
+     */
+    int removeBy(E example, SingularAttribute<E, ?>... attributes);
+
+    /**
+     * Bulk update by example - sets an attribute on all entities matching the example in a
+     * single statement, without loading them. Bypasses the persistence context.
+     * @param attribute         Attribute to update.
+     * @param value             New value of the attribute.
+     * @param example           Sample entity.
+     * @param attributes        Which attributes to consider for the query. At least one is required.
+     * @return                  Number of entities updated.
+     */
+    <V> int updateBy(SingularAttribute<E, V> attribute, V value, E example, SingularAttribute<E, ?>... attributes);
+
+    /**
+     * Bulk update by example - copies the updated attributes from the values entity to all
+     * entities matching the example in a single statement. Bypasses the persistence context.
+     * @param values            Entity holding the new values.
+     * @param updated           Attributes to update.
+     * @param example           Sample entity.
+     * @param attributes        Which attributes to consider for the query. At least one is required.
+     * @return                  Number of entities updated.
+     */
+    int updateBy(E values, SingularAttribute<E, ?>[] updated, E example, SingularAttribute<E, ?>... attributes);
     
     /**
      * Convenience access to {@link EntityManager#refresh(Object)}.
@@ -53,6 +127,15 @@ public interface EntityDao<E, PK extends Serializable> {
      */
     E findBy(PK primaryKey);
 
+    /**
+     * Entity lookup by several primary keys. Loads the entities with as few queries as the
+     * database allows, instead of one {@link #findBy(Serializable)} call per key.
+     * @param primaryKeys       DB primary keys.
+     * @return                  Entities in the order of the given keys. Keys without an entity
+     *                          are skipped.
+     */
+    List<E> findAllById(Collection<PK> primaryKeys);
+
     /**
      * Lookup all existing entities of entity class {@code <E>}.
      * @return                  List of entities, empty if none found.
@@ -103,6 +186,17 @@ public interface EntityDao<E, PK extends Serializable> {
      */
     List<E> findByLike(E example, int start, int max, SingularAttribute<E, ?>... attributes);
 
+    /**
+     * Query by example returning projections instead of entities. Only the entity
+     * attributes named like a property of the projection are selected.
+     * @param example           Sample entity. Query all like.
+     * @param projection        Class with a default constructor or interface with getters
+     *                          the selected attributes are mapped into.
+     * @param attributes        Which attributes to consider for the query.
+     * @return                  List of projections of the matching entities, or empty if none found.
+     */
+    <T> List<T> findBy(E example, Class<T> projection, SingularAttribute<E, ?>... attributes);
+
     /**
      * Count all existing entities of entity class {@code <E>}.
      * @return                  Counter.
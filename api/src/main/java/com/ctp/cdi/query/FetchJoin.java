@@ -0,0 +1,27 @@
+package com.ctp.cdi.query;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Loads associations of the queried entities together with them, avoiding one
+ * lazy load per result. Applies to {@link Query} methods with a JPQL or named
+ * query and to method expressions. Each attribute of the root entity is added
+ * as a left join fetch. Fetching a collection also selects distinct results,
+ * so the root entities are not repeated.
+ *
+ * Note that most providers apply {@link FirstResult} and {@link MaxResults} in
+ * memory when a collection is fetched.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FetchJoin {
+
+    /**
+     * Attribute names of the DAO entity to fetch.
+     */
+    String[] value();
+
+}
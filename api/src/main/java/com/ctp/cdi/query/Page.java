@@ -0,0 +1,42 @@
+package com.ctp.cdi.query;
+
+import java.util.List;
+
+/**
+ * A page of query results together with the total number of results.
+ *
+ * @param <E>   Result type.
+ */
+public interface Page<E> {
+
+    /**
+     * @return                  Results on this page.
+     */
+    List<E> getItems();
+
+    /**
+     * @return                  Total number of results over all pages.
+     */
+    long getTotal();
+
+    /**
+     * @return                  Position of this page, starting with zero.
+     */
+    int getNumber();
+
+    /**
+     * @return                  Maximum number of results on a page.
+     */
+    int getSize();
+
+    /**
+     * @return                  Number of pages.
+     */
+    int getPageCount();
+
+    /**
+     * @return                  Whether there are results after this page.
+     */
+    boolean hasNext();
+
+}
@@ -0,0 +1,49 @@
+package com.ctp.cdi.query;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent DAO reads concurrently. Each query is a callable invoking
+ * one or more DAO methods, and gets its own entity manager. Queries run outside
+ * of the caller's transaction and are read only: nothing is flushed, and
+ * changes to loaded entities are discarded. Returned entities are detached.
+ *
+ * <pre>
+ * List&lt;Object&gt; results = parallelQueries.execute(2, TimeUnit.SECONDS,
+ *     new Callable&lt;List&lt;Person&gt;&gt;() {
+ *         public List&lt;Person&gt; call() { return personDao.findByAge(18); }
+ *     },
+ *     new Callable&lt;Long&gt;() {
+ *         public Long call() { return orderDao.count(); }
+ *     });
+ * </pre>
+ */
+public interface ParallelQueries {
+
+    /**
+     * Execute queries concurrently and wait for all results.
+     *
+     * @param timeout           Maximum time to wait for all queries together.
+     * @param unit              Unit of the timeout.
+     * @param queries           Queries to execute.
+     * @return                  Query results, in the order of the queries.
+     * @throws TimeoutException     If not all queries finished in time. Pending queries are cancelled.
+     * @throws ExecutionException   If a query failed. Pending queries are cancelled.
+     * @throws InterruptedException If interrupted while waiting. Pending queries are cancelled.
+     */
+    List<Object> execute(long timeout, TimeUnit unit, Callable<?>... queries)
+            throws TimeoutException, ExecutionException, InterruptedException;
+
+    /**
+     * Execute queries concurrently and wait for all results.
+     *
+     * @see #execute(long, TimeUnit, Callable...)
+     */
+    List<Object> execute(long timeout, TimeUnit unit, List<? extends Callable<?>> queries)
+            throws TimeoutException, ExecutionException, InterruptedException;
+
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.SingularAttribute;
 
 /**
@@ -75,6 +76,26 @@ public interface QueryResult<E> {
      */
     QueryResult<E> changeOrder(String attribute);
     
+    /**
+     * Load an association of the result entities with a fetch join. Fetching a
+     * collection also makes the results distinct.
+     * 
+     * @param attribute         Association to fetch.
+     * @return                  Fluent API: the result instance.
+     * @see FetchJoin
+     */
+    QueryResult<E> fetch(Attribute<E, ?> attribute);
+    
+    /**
+     * Load an association of the result entities with a fetch join. Fetching a
+     * collection also makes the results distinct.
+     * 
+     * @param attribute         Name of the association to fetch.
+     * @return                  Fluent API: the result instance.
+     * @see FetchJoin
+     */
+    QueryResult<E> fetch(String attribute);
+    
     /**
      * Limit the number of results returned by the query.
      * 
@@ -123,6 +144,26 @@ public interface QueryResult<E> {
      */
     List<E> getResultList();
     
+    /**
+     * Stream the result set instead of loading it into memory.
+     * Uses the {@link Cursor} defaults.
+     * 
+     * @return                  Cursor over the entities retrieved by the query.
+     *                          Has to be closed if not read to the end.
+     */
+    ResultCursor<E> getResultCursor();
+    
+    /**
+     * Stream the result set instead of loading it into memory.
+     * 
+     * @param fetchSize         Number of rows fetched per database round trip.
+     * @param clearEvery        Clear the persistence context each time this number
+     *                          of rows has been read. Disabled when zero or less.
+     * @return                  Cursor over the entities retrieved by the query.
+     *                          Has to be closed if not read to the end.
+     */
+    ResultCursor<E> getResultCursor(int fetchSize, int clearEvery);
+    
     /**
      * Fetch a single result entity.
      * 
@@ -136,6 +177,15 @@ public interface QueryResult<E> {
      */
     long count();
     
+    /**
+     * Fetch the current page together with the total result count. The count query
+     * is only executed if the total cannot be derived from the page, i.e. if the
+     * page is full or empty beyond the first page.
+     * 
+     * @return                  Current page and result count.
+     */
+    Page<E> getPage();
+    
     /**
      * Set a page size on the query result. Defaults to 10 or takes the value of a
      * previous {@link #maxResults(int)} call.
@@ -167,6 +217,30 @@ public interface QueryResult<E> {
      */
     QueryResult<E> previousPage();
     
+    /**
+     * Switch to keyset pagination. Instead of skipping rows with an offset,
+     * {@link #nextPage()} restricts the query to the rows following the last
+     * row of the current page, based on the ordering attributes. Deep pages
+     * are then as fast as the first one.
+     * 
+     * The ordering has to be unique (e.g. end with the primary key) and the
+     * ordering attributes must not be null. Only forward navigation is supported,
+     * and {@link #nextPage()} has to be called after fetching the current page.
+     * 
+     * @return                  Fluent API: the result instance.
+     */
+    QueryResult<E> keyset();
+    
+    /**
+     * Restrict the result to the rows following the given key in the current ordering.
+     * Implies {@link #keyset()}.
+     * 
+     * @param key               Values of the ordering attributes of the last row seen,
+     *                          in the order the attributes were added.
+     * @return                  Fluent API: the result instance.
+     */
+    QueryResult<E> afterKey(Object... key);
+    
     /**
      * Count the number of pages.
      * @return                  Page count.
@@ -0,0 +1,23 @@
+package com.ctp.cdi.query;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Streams the results of a query instead of loading them all into memory.
+ * Backed by a database cursor where the persistence provider supports it.
+ * 
+ * A cursor can be iterated only once. It is closed automatically when all
+ * rows have been read, otherwise it has to be closed explicitly.
+ *
+ * @param <E>   Result type.
+ */
+public interface ResultCursor<E> extends Iterator<E>, Iterable<E>, Closeable {
+
+    /**
+     * Release the underlying database resources.
+     */
+    @Override
+    void close();
+
+}
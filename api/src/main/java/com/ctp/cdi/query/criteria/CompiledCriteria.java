@@ -0,0 +1,46 @@
+package com.ctp.cdi.query.criteria;
+
+import java.util.List;
+
+import javax.persistence.TypedQuery;
+
+/**
+ * A {@link Criteria} turned into a reusable query. All values passed to the criteria
+ * became query parameters, so running it again only binds new values, and the criteria
+ * query is not rebuilt.
+ *
+ * Values are given in the order they were passed to the criteria, including values of
+ * joined and or'ed criteria, each value of {@link Criteria#in(javax.persistence.metamodel.SingularAttribute, Object...)}
+ * and both bounds of {@link Criteria#between(javax.persistence.metamodel.SingularAttribute, Comparable, Comparable)}.
+ * Without values, the values the criteria was compiled with are used. Predicates skipped for
+ * {@code null} values are not part of the compiled query.
+ *
+ * @param <R>   Result type.
+ */
+public interface CompiledCriteria<R> {
+
+    /**
+     * @param values    Values of the query parameters, or none to reuse the compiled values.
+     * @return          A {@link TypedQuery} object with the values bound.
+     * @throws IllegalArgumentException If the number of values does not match the parameters.
+     */
+    TypedQuery<R> createQuery(Object... values);
+
+    /**
+     * Executes the query with the given values.
+     * @see #createQuery(Object...)
+     */
+    List<R> getResultList(Object... values);
+
+    /**
+     * Executes the query with the given values, expecting a single result.
+     * @see #createQuery(Object...)
+     */
+    R getSingleResult(Object... values);
+
+    /**
+     * @return          Number of values the query takes.
+     */
+    int getParameterCount();
+
+}
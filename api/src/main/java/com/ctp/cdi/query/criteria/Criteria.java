@@ -43,6 +43,34 @@ public interface Criteria<C, R> {
      */
     TypedQuery<R> createQuery();
 
+    /**
+     * Turns the criteria into a reusable query, with a parameter for each value.
+     * Later changes to the criteria do not change the compiled query.
+     * @return          A {@link CompiledCriteria} to execute with the current or new values.
+     */
+    CompiledCriteria<R> compile();
+
+    /**
+     * Counts the entities matching the criteria, distinct entities if {@link #distinct()}
+     * is set. Selections, fetch joins and ordering are ignored.
+     * @return          Number of matching entities.
+     */
+    Long count();
+
+    /**
+     * Counts the distinct entities matching the criteria, e.g. when joins return an
+     * entity several times. Selections, fetch joins and ordering are ignored.
+     * @return          Number of distinct matching entities.
+     */
+    Long countDistinct();
+
+    /**
+     * Checks for a matching entity by selecting the id of at most one entity.
+     * Selections, fetch joins and ordering are ignored.
+     * @return          {@code true} if at least one entity matches the criteria.
+     */
+    boolean exists();
+
     Criteria<C, R> or(Criteria<C, R> first, Criteria<C, R> second);
 
     Criteria<C, R> or(Criteria<C, R> first, Criteria<C, R> second, Criteria<C, R> third);
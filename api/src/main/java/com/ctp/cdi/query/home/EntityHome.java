@@ -96,8 +96,14 @@ public abstract class EntityHome<E, PK extends Serializable> implements Serializ
             attributes = Collections.emptyList();
         }
         SingularAttribute<E, Object>[] attArray = attributes.toArray(new SingularAttribute[attributes.size()]);
-        count = getEntityDao().countLike(search, attArray);
-        pageItems = getEntityDao().findByLike(search, page * pageSize, pageSize, attArray);
+        int offset = page * pageSize;
+        pageItems = getEntityDao().findByLike(search, offset, pageSize, attArray);
+        if (pageItems.size() < pageSize && (!pageItems.isEmpty() || offset == 0)) {
+            // the page ends the result, no need to count
+            count = offset + pageItems.size();
+        } else {
+            count = getEntityDao().countLike(search, attArray);
+        }
     }
     
     protected abstract EntityDao<E, PK> getEntityDao();
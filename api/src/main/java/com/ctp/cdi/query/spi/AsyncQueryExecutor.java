@@ -0,0 +1,21 @@
+package com.ctp.cdi.query.spi;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Runs DAO query methods returning a {@link Future}. The default implementation
+ * uses a fixed thread pool. A container managed executor can be plugged in by
+ * providing an alternative bean of this type.
+ */
+public interface AsyncQueryExecutor {
+
+    /**
+     * Submit a query for execution.
+     *
+     * @param query             Executes the query on a dedicated entity manager.
+     * @return                  The pending query result.
+     */
+    <T> Future<T> submit(Callable<T> query);
+
+}
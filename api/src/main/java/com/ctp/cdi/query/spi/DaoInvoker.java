@@ -0,0 +1,21 @@
+package com.ctp.cdi.query.spi;
+
+import java.lang.reflect.Method;
+
+/**
+ * Entry point of generated DAO implementations into the query processing,
+ * replacing the proxy interceptor of runtime DAOs.
+ */
+public interface DaoInvoker {
+
+    /**
+     * Process a DAO method call.
+     *
+     * @param dao               The generated DAO instance.
+     * @param method            The abstract DAO method as declared.
+     * @param parameters        The method call parameters.
+     * @return                  The query result.
+     */
+    Object invoke(Object dao, Method method, Object[] parameters);
+
+}
@@ -0,0 +1,25 @@
+package com.ctp.cdi.query.spi;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DAO implementation generated at compile time by the CDI Query annotation
+ * processor. The generated class is named like the DAO with the {@link #SUFFIX}
+ * appended, nested type names joined by underscores. When present, it is used as
+ * a regular bean instead of creating a proxy for the DAO at runtime.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GeneratedDao {
+
+    String SUFFIX = "_Impl";
+
+    /**
+     * The implemented DAO interface or abstract class.
+     */
+    Class<?> value();
+
+}
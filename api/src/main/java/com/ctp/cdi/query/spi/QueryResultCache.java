@@ -0,0 +1,42 @@
+package com.ctp.cdi.query.spi;
+
+import java.util.List;
+import java.util.Set;
+
+import com.ctp.cdi.query.CacheResult;
+
+/**
+ * Stores the results of query methods annotated with {@link CacheResult}.
+ * The default implementation keeps results in memory. A different cache can
+ * be plugged in by providing an alternative bean of this type.
+ */
+public interface QueryResultCache {
+
+    /**
+     * Look up a cached result.
+     * 
+     * @param region            Identifies the query method.
+     * @param key               Method parameter values.
+     * @return                  The cached result, or {@code null} if not cached or expired.
+     */
+    Object get(String region, List<Object> key);
+
+    /**
+     * Cache a query result.
+     * 
+     * @param region            Identifies the query method.
+     * @param key               Method parameter values.
+     * @param result            The result to cache.
+     * @param settings          Cache settings of the query method.
+     * @param entities          Entity types the result depends on.
+     */
+    void put(String region, List<Object> key, Object result, CacheResult settings, Set<Class<?>> entities);
+
+    /**
+     * Drop all cached results depending on the given entity type.
+     * 
+     * @param entityClass       Entity type which has been modified.
+     */
+    void invalidate(Class<?> entityClass);
+
+}
@@ -0,0 +1,93 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.jboss.weld.context.bound.BoundRequestContext;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.ctp.cdi.query.benchmark.dao.PersonDao;
+import com.ctp.cdi.query.benchmark.domain.Person;
+
+/**
+ * Boots Weld SE with the query extension on top of Hibernate and an in-memory
+ * H2 database, seeds test data and keeps a request context active for the
+ * benchmark thread. Shared by all suites which need a running container.
+ */
+@State(Scope.Thread)
+public class BenchmarkEnvironment {
+
+    public static final int PERSONS = 1000;
+    public static final String[] CITIES = { "Basel", "Bern", "Zurich", "Geneva", "Lugano" };
+
+    private Weld weld;
+    private WeldContainer container;
+    private BoundRequestContext requestContext;
+    private Map<String, Object> requestStore;
+
+    private PersonDao personDao;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void start() {
+        weld = new Weld();
+        container = weld.initialize();
+        requestStore = new HashMap<String, Object>();
+        requestContext = container.instance().select(BoundRequestContext.class).get();
+        requestContext.associate(requestStore);
+        requestContext.activate();
+        personDao = container.instance().select(PersonDao.class).get();
+        entityManager = container.instance().select(EntityManager.class).get();
+        seed();
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        // keep the persistence context from growing across iterations
+        entityManager.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        try {
+            requestContext.invalidate();
+            requestContext.deactivate();
+            requestContext.dissociate(requestStore);
+        } finally {
+            container.instance().select(EntityManagerProducer.class).get().shutdown();
+            weld.shutdown();
+        }
+    }
+
+    public PersonDao getPersonDao() {
+        return personDao;
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public <T> T lookup(Class<T> type) {
+        return container.instance().select(type).get();
+    }
+
+    private void seed() {
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < PERSONS; i++) {
+            Person person = new Person("person" + (i % 100), CITIES[i % CITIES.length], Integer.valueOf(i % 90));
+            person.setEnabled(Boolean.valueOf(i % 3 != 0));
+            entityManager.persist(person);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+}
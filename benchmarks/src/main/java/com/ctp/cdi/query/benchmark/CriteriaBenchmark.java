@@ -0,0 +1,48 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.TypedQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ctp.cdi.query.benchmark.domain.Person;
+import com.ctp.cdi.query.benchmark.domain.Person_;
+
+/**
+ * Criteria API: building the JPA criteria query alone and executing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CriteriaBenchmark {
+
+    @Benchmark
+    public TypedQuery<Person> createQuery(BenchmarkEnvironment env) {
+        return env.getPersonDao().criteria()
+                .eq(Person_.city, "Basel")
+                .gtOrEq(Person_.age, Integer.valueOf(18))
+                .in(Person_.name, "person1", "person2", "person3")
+                .orderAsc(Person_.name)
+                .createQuery();
+    }
+
+    @Benchmark
+    public List<Person> resultList(BenchmarkEnvironment env) {
+        return env.getPersonDao().criteria()
+                .eq(Person_.city, "Basel")
+                .gtOrEq(Person_.age, Integer.valueOf(18))
+                .orderAsc(Person_.name)
+                .getResultList();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ctp.cdi.query.benchmark.domain.Person;
+
+/**
+ * End to end DAO calls through the QueryHandler, one per method type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoInvocationBenchmark {
+
+    @Benchmark
+    public Person delegate(BenchmarkEnvironment env) {
+        return env.getPersonDao().findBy(Long.valueOf(1));
+    }
+
+    @Benchmark
+    public List<Person> methodExpression(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByNameAndCity("person1", "Bern");
+    }
+
+    @Benchmark
+    public List<Person> methodExpressionOrdered(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByAgeBetweenAndEnabledOrderByNameAsc(20, 30, Boolean.TRUE);
+    }
+
+    @Benchmark
+    public List<Person> annotated(BenchmarkEnvironment env) {
+        return env.getPersonDao().findAdultsIn("Basel", 18, 10, 0);
+    }
+
+    @Benchmark
+    public Person namedQuery(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByNamedQuery("person-unknown");
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.ctp.cdi.query.benchmark;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Exposes a resource local entity manager per request, backed by the
+ * in-memory H2 database configured in persistence.xml.
+ */
+@ApplicationScoped
+public class EntityManagerProducer {
+
+    public static final String PERSISTENCE_UNIT = "benchmark";
+
+    private EntityManagerFactory factory;
+
+    @Produces
+    @RequestScoped
+    public EntityManager create() {
+        return factory().createEntityManager();
+    }
+
+    public void close(@Disposes EntityManager entityManager) {
+        if (entityManager.isOpen()) {
+            entityManager.close();
+        }
+    }
+
+    public synchronized EntityManagerFactory factory() {
+        if (factory == null) {
+            factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        }
+        return factory;
+    }
+
+    public synchronized void shutdown() {
+        if (factory != null) {
+            factory.close();
+            factory = null;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ctp.cdi.query.FirstResult;
+import com.ctp.cdi.query.MaxResults;
+import com.ctp.cdi.query.QueryParam;
+import com.ctp.cdi.query.param.ParameterBinding;
+import com.ctp.cdi.query.param.Parameters;
+
+/**
+ * Compares building {@link Parameters} from the reflective method meta data
+ * on every call with binding arguments to a precomputed {@link ParameterBinding}.
+ * Run with the JMH gc profiler ({@code -prof gc}) to see the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParametersBenchmark {
+
+    private Method method;
+    private ParameterBinding binding;
+    private Object[] args;
+    private Query query;
+
+    @Setup
+    public void setup() throws Exception {
+        method = ParametersBenchmark.class.getDeclaredMethod("findBy", String.class, String.class,
+                Integer.class, int.class, int.class);
+        binding = ParameterBinding.create(method);
+        args = new Object[] { "name", "value", Integer.valueOf(42), Integer.valueOf(10), Integer.valueOf(20) };
+        query = (Query) Proxy.newProxyInstance(Query.class.getClassLoader(), new Class<?>[] { Query.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return proxy;
+                    }
+                });
+    }
+
+    @Benchmark
+    public Parameters createFromMethod() {
+        return Parameters.create(method, args);
+    }
+
+    @Benchmark
+    public Parameters createFromBinding() {
+        return Parameters.create(binding, args);
+    }
+
+    @Benchmark
+    public Query createAndApply() {
+        return Parameters.create(binding, args).applyTo(query);
+    }
+
+    // signature under test, resembling a typical annotated DAO method
+    void findBy(@QueryParam("name") String name, String value, Integer number,
+            @MaxResults int max, @FirstResult int first) {
+    }
+
+}
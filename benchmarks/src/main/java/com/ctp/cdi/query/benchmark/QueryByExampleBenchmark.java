@@ -0,0 +1,60 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ctp.cdi.query.benchmark.domain.Person;
+import com.ctp.cdi.query.benchmark.domain.Person_;
+
+/**
+ * EntityDao query by example methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryByExampleBenchmark {
+
+    private Person example;
+    private Person likeExample;
+
+    @Setup
+    public void setup() {
+        example = new Person("person7", "Bern", Integer.valueOf(7));
+        likeExample = new Person("person1%", "B%", null);
+    }
+
+    @Benchmark
+    public List<Person> findBy(BenchmarkEnvironment env) {
+        return env.getPersonDao().findBy(example, Person_.name, Person_.city);
+    }
+
+    @Benchmark
+    public List<Person> findByPaged(BenchmarkEnvironment env) {
+        return env.getPersonDao().findBy(example, 0, 10, Person_.city, Person_.age);
+    }
+
+    @Benchmark
+    public List<Person> findByLike(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByLike(likeExample, Person_.name, Person_.city);
+    }
+
+    @Benchmark
+    public Long count(BenchmarkEnvironment env) {
+        return env.getPersonDao().count(example, Person_.city);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ctp.cdi.query.benchmark.domain.Person;
+import com.ctp.cdi.query.benchmark.domain.Person_;
+
+/**
+ * QueryResult post processing: count query rewriting, order by chaining
+ * and paging.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryResultBenchmark {
+
+    @Benchmark
+    public long count(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByCity("Basel").count();
+    }
+
+    @Benchmark
+    public List<Person> orderByChain(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByCity("Basel")
+                .orderAsc(Person_.name)
+                .orderDesc(Person_.age)
+                .changeOrder(Person_.name)
+                .maxResults(20)
+                .getResultList();
+    }
+
+    @Benchmark
+    public List<Person> page(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByCity("Zurich")
+                .orderAsc(Person_.id)
+                .withPageSize(25)
+                .toPage(3)
+                .getResultList();
+    }
+
+    @Benchmark
+    public int countPages(BenchmarkEnvironment env) {
+        return env.getPersonDao().findByCity("Zurich")
+                .withPageSize(25)
+                .countPages();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.ctp.cdi.query.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.ctp.cdi.query.benchmark.dao.PersonDao;
+import com.ctp.cdi.query.benchmark.domain.Person;
+import com.ctp.cdi.query.builder.part.QueryRoot;
+import com.ctp.cdi.query.meta.DaoComponent;
+import com.ctp.cdi.query.meta.DaoEntity;
+
+/**
+ * Method expression parsing into JPQL, without a container.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryRootBenchmark {
+
+    private DaoComponent dao;
+
+    @Setup
+    public void setup() {
+        dao = new DaoComponent(PersonDao.class, new DaoEntity(Person.class, Long.class));
+    }
+
+    @Benchmark
+    public QueryRoot simple() {
+        return QueryRoot.create("findByName", dao);
+    }
+
+    @Benchmark
+    public QueryRoot conjunction() {
+        return QueryRoot.create("findByNameAndCity", dao);
+    }
+
+    @Benchmark
+    public QueryRoot complex() {
+        return QueryRoot.create("findByNameLikeAndAgeBetweenOrCityNotEqualOrderByNameAscAgeDesc", dao);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.ctp.cdi.query.benchmark.dao;
+
+import java.util.List;
+
+import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.Dao;
+import com.ctp.cdi.query.FirstResult;
+import com.ctp.cdi.query.MaxResults;
+import com.ctp.cdi.query.Query;
+import com.ctp.cdi.query.QueryParam;
+import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.benchmark.domain.Person;
+import com.ctp.cdi.query.criteria.CriteriaSupport;
+
+@Dao
+public abstract class PersonDao extends AbstractEntityDao<Person, Long> implements CriteriaSupport<Person> {
+
+    public abstract List<Person> findByNameAndCity(String name, String city);
+
+    public abstract List<Person> findByAgeBetweenAndEnabledOrderByNameAsc(Integer min, Integer max, Boolean enabled);
+
+    @Query("select p from Person p where p.city = :city and p.age > :age")
+    public abstract List<Person> findAdultsIn(@QueryParam("city") String city, @QueryParam("age") Integer age,
+            @MaxResults int max, @FirstResult int first);
+
+    @Query(named = Person.BY_NAME)
+    public abstract Person findByNamedQuery(String name);
+
+    public abstract QueryResult<Person> findByCity(String city);
+
+}
@@ -0,0 +1,72 @@
+package com.ctp.cdi.query.benchmark.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.NamedQuery;
+
+@Entity
+@NamedQuery(name = Person.BY_NAME, query = "select p from Person p where p.name = ?1")
+public class Person {
+
+    public static final String BY_NAME = "person.byName";
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String name;
+    private String city;
+    private Integer age;
+    private Boolean enabled = Boolean.TRUE;
+
+    public Person() {
+    }
+
+    public Person(String name, String city, Integer age) {
+        this.name = name;
+        this.city = city;
+        this.age = age;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.ctp.cdi.query.benchmark.domain;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+
+@StaticMetamodel(Person.class)
+public abstract class Person_ {
+
+    public static volatile SingularAttribute<Person, Long> id;
+    public static volatile SingularAttribute<Person, String> name;
+    public static volatile SingularAttribute<Person, String> city;
+    public static volatile SingularAttribute<Person, Integer> age;
+    public static volatile SingularAttribute<Person, Boolean> enabled;
+
+}
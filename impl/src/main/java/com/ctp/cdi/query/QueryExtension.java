@@ -1,15 +1,25 @@
 package com.ctp.cdi.query;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 import org.jboss.solder.bean.BeanBuilder;
 import org.jboss.solder.logging.Logger;
@@ -17,8 +27,11 @@ import org.jboss.solder.serviceHandler.ServiceHandlerBeanLifecycle;
 import org.jboss.solder.serviceHandler.ServiceHandlerExtension;
 
 import com.ctp.cdi.query.handler.QueryHandler;
+import com.ctp.cdi.query.meta.DaoComponent;
 import com.ctp.cdi.query.meta.DaoComponentsFactory;
+import com.ctp.cdi.query.meta.QueryPrecompiler;
 import com.ctp.cdi.query.meta.unit.PersistenceUnits;
+import com.ctp.cdi.query.spi.GeneratedDao;
 
 /**
  * The main extension class for CDI queries, based on Seam Solder service handlers.
@@ -34,19 +47,120 @@ public class QueryExtension extends ServiceHandlerExtension {
         PersistenceUnits.instance().init();
     }
 
+    /**
+     * Optionally creates all DAO queries once, see {@link QueryPrecompiler}. Each DAO
+     * uses a dedicated entity manager of its persistence unit, as no request or
+     * transaction is active yet. Entity managers produced in a scope which is not
+     * active yet cannot be asked for their factory, their DAOs are skipped.
+     */
+    void afterDeploymentValidation(@Observes AfterDeploymentValidation after, BeanManager beanManager) {
+        if (!QueryPrecompiler.isEnabled()) {
+            return;
+        }
+        QueryPrecompiler precompiler = new QueryPrecompiler();
+        Map<List<Annotation>, EntityManagerFactory> factories = new HashMap<List<Annotation>, EntityManagerFactory>();
+        for (DaoComponent dao : DaoComponentsFactory.instance().getComponents()) {
+            List<Annotation> qualifiers = Arrays.asList(dao.resolveEntityManagerQualifiers());
+            if (!factories.containsKey(qualifiers)) {
+                factories.put(qualifiers, lookupFactory(beanManager, qualifiers));
+            }
+            EntityManagerFactory factory = factories.get(qualifiers);
+            if (factory == null) {
+                log.debugv("afterDeploymentValidation: Queries of {0} not precompiled", dao.getDaoClass());
+                continue;
+            }
+            EntityManager entityManager = factory.createEntityManager();
+            try {
+                for (RuntimeException problem : precompiler.precompile(dao, entityManager)) {
+                    after.addDeploymentProblem(problem);
+                }
+            } finally {
+                entityManager.close();
+            }
+        }
+    }
+
+    EntityManagerFactory lookupFactory(BeanManager beanManager, List<Annotation> qualifiers) {
+        try {
+            Bean<?> bean = beanManager.resolve(beanManager.getBeans(EntityManager.class,
+                    qualifiers.toArray(new Annotation[qualifiers.size()])));
+            if (bean == null) {
+                log.warnv("lookupFactory: No entity manager with qualifiers {0}, queries not precompiled",
+                        qualifiers);
+                return null;
+            }
+            if (!isActive(beanManager, bean.getScope())) {
+                log.warnv("lookupFactory: Entity manager with qualifiers {0} is produced in the inactive scope {1}, " +
+                        "queries not precompiled", qualifiers, bean.getScope().getSimpleName());
+                return null;
+            }
+            CreationalContext<?> context = beanManager.createCreationalContext(bean);
+            try {
+                EntityManager entityManager = (EntityManager) beanManager.getReference(bean, EntityManager.class,
+                        context);
+                return entityManager.getEntityManagerFactory();
+            } finally {
+                context.release();
+            }
+        } catch (RuntimeException e) {
+            log.warnv("lookupFactory: Failed to resolve entity manager with qualifiers {0}, " +
+                    "queries not precompiled: {1}", qualifiers, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Pseudo scopes have no proxy, so the factory is available whenever the bean is.
+     */
+    private boolean isActive(BeanManager beanManager, Class<? extends Annotation> scope) {
+        if (!beanManager.isNormalScope(scope)) {
+            return true;
+        }
+        try {
+            return beanManager.getContext(scope).isActive();
+        } catch (ContextNotActiveException e) {
+            return false;
+        }
+    }
+
     @Override
     protected <X> Class<?> getHandlerClass(ProcessAnnotatedType<X> event) {
         if (event.getAnnotatedType().isAnnotationPresent(Dao.class) || event.getAnnotatedType().getJavaClass().isAnnotationPresent(Dao.class)) {
+            Class<X> daoClass = event.getAnnotatedType().getJavaClass();
+            if (daoClass.isAnnotationPresent(GeneratedDao.class)) {
+                return null;
+            }
             log.debugv("getHandlerClass: Dao annotation detected on {0}", event.getAnnotatedType());
-            boolean added = DaoComponentsFactory.instance().add(event.getAnnotatedType().getJavaClass());
+            boolean added = DaoComponentsFactory.instance().add(daoClass);
             if (!added) {
                 log.infov("getHandlerClass: Type {0} ignored as it's not related to an entity",
                         event.getAnnotatedType());
+            } else if (hasGeneratedImplementation(daoClass)) {
+                log.debugv("getHandlerClass: Using generated implementation of {0}", daoClass);
+                return null;
             }
             return added ? QueryHandler.class : null;
         }
         return null;
     }
+
+    /**
+     * Generated implementations are regular beans of the archive, so no proxy
+     * is needed for their DAO.
+     */
+    private boolean hasGeneratedImplementation(Class<?> daoClass) {
+        String name = daoClass.getName();
+        String packageName = daoClass.getPackage() != null ? daoClass.getPackage().getName() + "." : "";
+        String generated = packageName + name.substring(packageName.length()).replace('$', '_')
+                + GeneratedDao.SUFFIX;
+        try {
+            Class<?> implementation = Class.forName(generated, false, daoClass.getClassLoader());
+            GeneratedDao marker = implementation.getAnnotation(GeneratedDao.class);
+            return marker != null && daoClass.equals(marker.value());
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
     
     //FIX for https://issues.jboss.org/browse/SOLDER-327
     @Override
@@ -1,7 +1,10 @@
 package com.ctp.cdi.query.audit;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.persistence.PrePersist;
@@ -9,27 +12,87 @@ import javax.persistence.PreUpdate;
 
 import org.jboss.solder.beanManager.BeanManagerLocator;
 
+/**
+ * Passes entity events to the audit listener beans. The beans are resolved on the
+ * first event. References to normal scoped beans are reused for all following events,
+ * dependent beans are created per event and destroyed afterwards.
+ */
 public class AuditEntityListener {
+
+    private volatile Listeners<PrePersistAuditListener> persistListeners;
+    private volatile Listeners<PreUpdateAuditListener> updateListeners;
     
     @PrePersist
     public void persist(Object entity) {
-        BeanManager beanManager = new BeanManagerLocator().getBeanManager();
-        Set<Bean<?>> beans = beanManager.getBeans(PrePersistAuditListener.class);
-        for (Bean<?> bean : beans) {
-            PrePersistAuditListener result = (PrePersistAuditListener) beanManager.getReference(
-                    bean, PrePersistAuditListener.class, beanManager.createCreationalContext(bean));
-            result.prePersist(entity);
+        Listeners<PrePersistAuditListener> listeners = persistListeners;
+        if (listeners == null) {
+            listeners = new Listeners<PrePersistAuditListener>(PrePersistAuditListener.class);
+            persistListeners = listeners;
+        }
+        for (int i = 0; i < listeners.shared.size(); i++) {
+            listeners.shared.get(i).prePersist(entity);
+        }
+        for (int i = 0; i < listeners.dependent.size(); i++) {
+            Bean<?> bean = listeners.dependent.get(i);
+            CreationalContext<?> context = listeners.beanManager.createCreationalContext(bean);
+            try {
+                listeners.reference(bean, context).prePersist(entity);
+            } finally {
+                context.release();
+            }
         }
     }
     
     @PreUpdate
     public void update(Object entity) {
-        BeanManager beanManager = new BeanManagerLocator().getBeanManager();
-        Set<Bean<?>> beans = beanManager.getBeans(PreUpdateAuditListener.class);
-        for (Bean<?> bean : beans) {
-            PreUpdateAuditListener result = (PreUpdateAuditListener) beanManager.getReference(
-                    bean, PreUpdateAuditListener.class, beanManager.createCreationalContext(bean));
-            result.preUpdate(entity);
+        Listeners<PreUpdateAuditListener> listeners = updateListeners;
+        if (listeners == null) {
+            listeners = new Listeners<PreUpdateAuditListener>(PreUpdateAuditListener.class);
+            updateListeners = listeners;
+        }
+        for (int i = 0; i < listeners.shared.size(); i++) {
+            listeners.shared.get(i).preUpdate(entity);
+        }
+        for (int i = 0; i < listeners.dependent.size(); i++) {
+            Bean<?> bean = listeners.dependent.get(i);
+            CreationalContext<?> context = listeners.beanManager.createCreationalContext(bean);
+            try {
+                listeners.reference(bean, context).preUpdate(entity);
+            } finally {
+                context.release();
+            }
+        }
+    }
+
+    /**
+     * Listener beans of one type. Client proxies of normal scoped beans are safe to
+     * share between threads, dependent beans are kept as {@link Bean}s only.
+     */
+    private static final class Listeners<T> {
+
+        private final BeanManager beanManager;
+        private final Class<T> listenerClass;
+        private final List<T> shared;
+        private final List<Bean<?>> dependent;
+
+        private Listeners(Class<T> listenerClass) {
+            this.beanManager = new BeanManagerLocator().getBeanManager();
+            this.listenerClass = listenerClass;
+            List<T> shared = new ArrayList<T>();
+            List<Bean<?>> dependent = new ArrayList<Bean<?>>();
+            for (Bean<?> bean : beanManager.getBeans(listenerClass)) {
+                if (beanManager.isNormalScope(bean.getScope())) {
+                    shared.add(reference(bean, beanManager.createCreationalContext(bean)));
+                } else {
+                    dependent.add(bean);
+                }
+            }
+            this.shared = Collections.unmodifiableList(shared);
+            this.dependent = Collections.unmodifiableList(dependent);
+        }
+
+        private T reference(Bean<?> bean, CreationalContext<?> context) {
+            return listenerClass.cast(beanManager.getReference(bean, listenerClass, context));
         }
     }
 
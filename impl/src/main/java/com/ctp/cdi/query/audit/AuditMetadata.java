@@ -0,0 +1,100 @@
+package com.ctp.cdi.query.audit;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.solder.properties.Property;
+import org.jboss.solder.properties.query.AnnotatedPropertyCriteria;
+import org.jboss.solder.properties.query.PropertyQueries;
+
+/**
+ * Audited properties of an entity class. Looked up once per class and kept in the
+ * {@link AuditMetadataCache}, so entity events do not scan the class again. Classes
+ * without audited properties share an empty instance.
+ */
+final class AuditMetadata {
+
+    private static final AuditMetadata NONE = new AuditMetadata(Collections.<TimestampProperty>emptyList(),
+            Collections.<TimestampProperty>emptyList(), Collections.<Property<Object>>emptyList());
+
+    private final List<TimestampProperty> createTimestamps;
+    private final List<TimestampProperty> updateTimestamps;
+    private final List<Property<Object>> principals;
+
+    private AuditMetadata(List<TimestampProperty> createTimestamps, List<TimestampProperty> updateTimestamps,
+            List<Property<Object>> principals) {
+        this.createTimestamps = createTimestamps;
+        this.updateTimestamps = updateTimestamps;
+        this.principals = principals;
+    }
+
+    /**
+     * Properties set on persist: {@link ModifiedOn} with {@code onCreate} and {@link CreatedOn}.
+     */
+    List<TimestampProperty> getCreateTimestamps() {
+        return createTimestamps;
+    }
+
+    /**
+     * Properties set on update: all {@link ModifiedOn}.
+     */
+    List<TimestampProperty> getUpdateTimestamps() {
+        return updateTimestamps;
+    }
+
+    List<Property<Object>> getPrincipals() {
+        return principals;
+    }
+
+    static AuditMetadata lookup(Class<?> entityClass) {
+        List<TimestampProperty> createTimestamps = new ArrayList<TimestampProperty>();
+        List<TimestampProperty> updateTimestamps = new ArrayList<TimestampProperty>();
+        for (Property<Object> property : writableProperties(entityClass, ModifiedOn.class)) {
+            TimestampProperty timestamp = new TimestampProperty(property);
+            updateTimestamps.add(timestamp);
+            if (property.getAnnotatedElement().getAnnotation(ModifiedOn.class).onCreate()) {
+                createTimestamps.add(timestamp);
+            }
+        }
+        for (Property<Object> property : writableProperties(entityClass, CreatedOn.class)) {
+            createTimestamps.add(new TimestampProperty(property));
+        }
+        List<Property<Object>> principals = writableProperties(entityClass, ModifiedBy.class);
+        if (createTimestamps.isEmpty() && updateTimestamps.isEmpty() && principals.isEmpty()) {
+            return NONE;
+        }
+        return new AuditMetadata(Collections.unmodifiableList(createTimestamps),
+                Collections.unmodifiableList(updateTimestamps), Collections.unmodifiableList(principals));
+    }
+
+    private static List<Property<Object>> writableProperties(Class<?> entityClass,
+            Class<? extends Annotation> annotation) {
+        return PropertyQueries.<Object>createQuery(entityClass)
+                .addCriteria(new AnnotatedPropertyCriteria(annotation))
+                .getWritableResultList();
+    }
+
+    static final class TimestampProperty {
+
+        private final Property<Object> property;
+        private final TimestampWriter writer;
+
+        private TimestampProperty(Property<Object> property) {
+            this.property = property;
+            this.writer = TimestampWriter.forType(property.getJavaClass());
+        }
+
+        Property<Object> getProperty() {
+            return property;
+        }
+
+        Object write(Object entity, long systime) throws Exception {
+            Object now = writer.now(systime);
+            property.setValue(entity, now);
+            return now;
+        }
+    }
+
+}
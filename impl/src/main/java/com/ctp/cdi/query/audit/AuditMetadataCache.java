@@ -0,0 +1,26 @@
+package com.ctp.cdi.query.audit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * {@link AuditMetadata} of the entity classes audited so far. Kept with the
+ * application, so properties of entity classes do not outlive a redeployment.
+ */
+@ApplicationScoped
+class AuditMetadataCache {
+
+    private final ConcurrentMap<Class<?>, AuditMetadata> metadata = new ConcurrentHashMap<Class<?>, AuditMetadata>();
+
+    AuditMetadata of(Class<?> entityClass) {
+        AuditMetadata result = metadata.get(entityClass);
+        if (result == null) {
+            result = AuditMetadata.lookup(entityClass);
+            metadata.putIfAbsent(entityClass, result);
+        }
+        return result;
+    }
+
+}
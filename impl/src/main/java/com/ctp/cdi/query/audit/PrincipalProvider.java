@@ -1,23 +1,61 @@
 package com.ctp.cdi.query.audit;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.inject.Inject;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 import org.jboss.solder.properties.Property;
-import org.jboss.solder.properties.query.AnnotatedPropertyCriteria;
-import org.jboss.solder.properties.query.PropertyQueries;
-import org.jboss.solder.properties.query.PropertyQuery;
 import org.jboss.solder.reflection.AnnotationInstanceProvider;
 
+/**
+ * Sets the current user on {@link ModifiedBy} properties. The {@link CurrentUser} bean is
+ * resolved once per property type. Within a JTA transaction, the principal is taken from
+ * the bean once and reused for all entities the transaction writes. Application scoped,
+ * so the audit listener shares one instance across all events.
+ */
+@ApplicationScoped
 class PrincipalProvider extends AuditProvider {
+
+    private static final String REGISTRY_NAME = "java:comp/TransactionSynchronizationRegistry";
+    private static final String PRINCIPALS_KEY = PrincipalProvider.class.getName() + ".principals";
+    private static final CurrentUser CURRENT_USER = new AnnotationInstanceProvider()
+            .get(CurrentUser.class, Collections.<String, Object>emptyMap());
+
+    private final ConcurrentMap<Class<?>, Bean<?>> principalBeans = new ConcurrentHashMap<Class<?>, Bean<?>>();
+    private TransactionSynchronizationRegistry registry;
     
     @Inject
     private BeanManager manager;
+
+    @Inject
+    private AuditMetadataCache metadata;
     
+    /**
+     * Runs when the provider is first called. This is on the thread of the first
+     * write, where the container provides the component naming context.
+     */
+    @PostConstruct
+    void lookupRegistry() {
+        try {
+            registry = (TransactionSynchronizationRegistry) new InitialContext().lookup(REGISTRY_NAME);
+        } catch (NamingException e) {
+            log.debugv("No transaction registry found, resolving principals per entity: {0}", e.getMessage());
+        }
+    }
+
     @Override
     public void prePersist(Object entity) {
         updatePrincipal(entity);
@@ -29,10 +67,9 @@ class PrincipalProvider extends AuditProvider {
     }
 
     private void updatePrincipal(Object entity) {
-        PropertyQuery<Object> query = PropertyQueries.<Object>createQuery(entity.getClass())
-                .addCriteria(new AnnotatedPropertyCriteria(ModifiedBy.class));
-        for (Property<Object> property : query.getWritableResultList()) {
-            setProperty(entity, property);
+        List<Property<Object>> properties = metadata.of(entity.getClass()).getPrincipals();
+        for (int i = 0; i < properties.size(); i++) {
+            setProperty(entity, properties.get(i));
         }
     }
     
@@ -40,7 +77,9 @@ class PrincipalProvider extends AuditProvider {
         try {
             Object value = resolvePrincipal(entity, property);
             property.setValue(entity, value);
-            log.debugv("Updated {0} with {1}", propertyName(entity, property), value);
+            if (log.isDebugEnabled()) {
+                log.debugv("Updated {0} with {1}", propertyName(entity, property), value);
+            }
         } catch (Exception e) {
             throw new AuditPropertyException("Failed to write principal to " + 
                     propertyName(entity, property), e);
@@ -48,17 +87,50 @@ class PrincipalProvider extends AuditProvider {
     }
 
     private Object resolvePrincipal(Object entity, Property<Object> property) {
-        AnnotationInstanceProvider provider = new AnnotationInstanceProvider();
-        CurrentUser principal = provider.get(CurrentUser.class, Collections.<String, Object>emptyMap());
         Class<?> propertyClass = property.getJavaClass();
-        Set<Bean<?>> beans = manager.getBeans(propertyClass, principal);
+        Map<Class<?>, Object> principals = transactionPrincipals();
+        if (principals != null && principals.containsKey(propertyClass)) {
+            return principals.get(propertyClass);
+        }
+        Bean<?> bean = principalBean(entity, property);
+        Object result = manager.getReference(bean, propertyClass, manager.createCreationalContext(bean));
+        if (principals != null) {
+            principals.put(propertyClass, result);
+        }
+        return result;
+    }
+
+    private Bean<?> principalBean(Object entity, Property<Object> property) {
+        Class<?> propertyClass = property.getJavaClass();
+        Bean<?> result = principalBeans.get(propertyClass);
+        if (result != null) {
+            return result;
+        }
+        Set<Bean<?>> beans = manager.getBeans(propertyClass, CURRENT_USER);
         if (!beans.isEmpty() && beans.size() == 1) {
-            Bean<?> bean = beans.iterator().next();
-            Object result = manager.getReference(bean, propertyClass, manager.createCreationalContext(bean));
+            result = beans.iterator().next();
+            principalBeans.putIfAbsent(propertyClass, result);
             return result;
         }
         throw new IllegalArgumentException("Principal " + (beans.isEmpty() ? "not found" : "not unique") +
                 " for " + propertyName(entity, property));
     }
 
+    /**
+     * Principals resolved in the current transaction, or {@code null} without an active
+     * JTA transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Class<?>, Object> transactionPrincipals() {
+        if (registry == null || registry.getTransactionKey() == null) {
+            return null;
+        }
+        Map<Class<?>, Object> result = (Map<Class<?>, Object>) registry.getResource(PRINCIPALS_KEY);
+        if (result == null) {
+            result = new HashMap<Class<?>, Object>();
+            registry.putResource(PRINCIPALS_KEY, result);
+        }
+        return result;
+    }
+
 }
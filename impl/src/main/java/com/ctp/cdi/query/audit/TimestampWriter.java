@@ -0,0 +1,99 @@
+package com.ctp.cdi.query.audit;
+
+import java.lang.reflect.Constructor;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Creates the current time for one temporal property type. The writer is chosen
+ * once per property, so no type checks or constructor lookups happen per entity.
+ */
+abstract class TimestampWriter {
+
+    private static final TimestampWriter CALENDAR = new TimestampWriter() {
+        @Override
+        Object now(long systime) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(systime);
+            return cal;
+        }
+    };
+
+    private static final TimestampWriter DATE = new TimestampWriter() {
+        @Override
+        Object now(long systime) {
+            return new Date(systime);
+        }
+    };
+
+    private static final TimestampWriter SQL_DATE = new TimestampWriter() {
+        @Override
+        Object now(long systime) {
+            return new java.sql.Date(systime);
+        }
+    };
+
+    private static final TimestampWriter TIME = new TimestampWriter() {
+        @Override
+        Object now(long systime) {
+            return new Time(systime);
+        }
+    };
+
+    private static final TimestampWriter TIMESTAMP = new TimestampWriter() {
+        @Override
+        Object now(long systime) {
+            return new Timestamp(systime);
+        }
+    };
+
+    abstract Object now(long systime) throws Exception;
+
+    static TimestampWriter forType(final Class<?> type) {
+        if (Calendar.class.isAssignableFrom(type)) {
+            return CALENDAR;
+        }
+        if (Date.class.equals(type)) {
+            return DATE;
+        }
+        if (java.sql.Date.class.equals(type)) {
+            return SQL_DATE;
+        }
+        if (Time.class.equals(type)) {
+            return TIME;
+        }
+        if (Timestamp.class.equals(type)) {
+            return TIMESTAMP;
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return new ConstructorWriter(type);
+        }
+        return new TimestampWriter() {
+            @Override
+            Object now(long systime) {
+                throw new IllegalArgumentException("Annotated field is not a date class: " + type);
+            }
+        };
+    }
+
+    private static class ConstructorWriter extends TimestampWriter {
+
+        private final Class<?> type;
+        private Constructor<?> constructor;
+
+        private ConstructorWriter(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object now(long systime) throws Exception {
+            if (constructor == null) {
+                constructor = type.getConstructor(Long.TYPE);
+            }
+            return constructor.newInstance(systime);
+        }
+    }
+
+}
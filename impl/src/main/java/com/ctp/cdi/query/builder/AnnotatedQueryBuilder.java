@@ -19,8 +19,6 @@ import com.ctp.cdi.query.util.jpa.QueryStringExtractorFactory;
  */
 @QueryInvocation(MethodType.ANNOTATED)
 public class AnnotatedQueryBuilder extends QueryBuilder {
-    
-    private final QueryStringExtractorFactory factory = new QueryStringExtractorFactory();
 
     @Override
     public Object execute(CdiQueryInvocationContext context) {
@@ -38,9 +36,9 @@ public class AnnotatedQueryBuilder extends QueryBuilder {
             if (!context.hasQueryStringPostProcessors()) {
                 result = params.applyTo(entityManager.createNamedQuery(query.named()));
             } else {
-                javax.persistence.Query namedQuery = entityManager.createNamedQuery(query.named());
-                String named = factory.select(namedQuery).extractFrom(namedQuery);
+                String named = QueryStringExtractorFactory.instance().extractNamed(entityManager, query.named());
                 String jpqlQuery = context.applyQueryStringPostProcessors(named);
+                context.setQueryString(jpqlQuery);
                 result = params.applyTo(entityManager.createQuery(jpqlQuery));
             }
         } else if (isNotEmpty(query.sql())) {
@@ -1,7 +1,6 @@
 package com.ctp.cdi.query.builder;
 
 import java.lang.reflect.Method;
-import java.text.MessageFormat;
 import java.util.List;
 
 import javax.persistence.LockModeType;
@@ -18,16 +17,26 @@ import com.ctp.cdi.query.param.Parameters;
  */
 public abstract class QueryBuilder {
     
-    public static final String QUERY_SELECT = "select e from {0} e";
-    public static final String QUERY_COUNT = "select count(e) from {0} e";
     public static final String ENTITY_NAME = "e";
     
     public static String selectQuery(String entityName) {
-        return MessageFormat.format(QUERY_SELECT, entityName);
+        return "select e from " + entityName + " e";
+    }
+
+    public static String selectQuery(String selection, String entityName) {
+        return "select " + selection + " from " + entityName + " e";
     }
     
     public static String countQuery(String entityName) {
-        return MessageFormat.format(QUERY_COUNT, entityName);
+        return "select count(e) from " + entityName + " e";
+    }
+
+    public static String deleteQuery(String entityName) {
+        return "delete from " + entityName + " e";
+    }
+
+    public static String updateQuery(String entityName) {
+        return "update " + entityName + " e";
     }
     
     public abstract Object execute(CdiQueryInvocationContext ctx);
@@ -21,6 +21,11 @@ public class QueryBuilderContext {
         builder.append(string);
         return this;
     }
+
+    public QueryBuilderContext append(int value) {
+        builder.append(value);
+        return this;
+    }
     
     public String resultString() {
         return builder.toString();
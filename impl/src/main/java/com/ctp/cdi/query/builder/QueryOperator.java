@@ -20,6 +20,8 @@ public enum QueryOperator {
     private final String expression;
     private final String jpql;
     private final int paramNum;
+    private final String[] literals;
+    private final int[] placeholders;
     
     private QueryOperator(String expression, String jpql) {
         this(expression, jpql, 1);
@@ -29,6 +31,29 @@ public enum QueryOperator {
         this.expression = expression;
         this.jpql = jpql;
         this.paramNum = paramNum;
+        this.literals = new String[paramNum + 2];
+        this.placeholders = new int[paramNum + 1];
+        split();
+    }
+
+    /**
+     * Appends the JPQL for this operator applied on a property to the context,
+     * taking the next {@link #getParamNum()} positional parameters.
+     */
+    public void render(QueryBuilderContext ctx, String property) {
+        int firstParam = ctx.getCounter();
+        for (int i = 0; i < placeholders.length; i++) {
+            ctx.append(literals[i]);
+            if (placeholders[i] == 0) {
+                ctx.append(property);
+            } else {
+                ctx.append("?").append(firstParam + placeholders[i] - 1);
+            }
+        }
+        ctx.append(literals[placeholders.length]);
+        for (int i = 0; i < paramNum; i++) {
+            ctx.increment();
+        }
     }
 
     public String getExpression() {
@@ -42,5 +67,19 @@ public enum QueryOperator {
     public int getParamNum() {
         return paramNum;
     }
+
+    private void split() {
+        int index = 0;
+        int start = 0;
+        int open = jpql.indexOf('{');
+        while (open >= 0) {
+            int close = jpql.indexOf('}', open);
+            literals[index] = jpql.substring(start, open);
+            placeholders[index++] = Integer.parseInt(jpql.substring(open + 1, close));
+            start = close + 1;
+            open = jpql.indexOf('{', start);
+        }
+        literals[index] = jpql.substring(start);
+    }
     
 }
@@ -2,8 +2,6 @@ package com.ctp.cdi.query.builder.part;
 
 import static com.ctp.cdi.query.util.QueryUtils.uncapitalize;
 
-import java.text.MessageFormat;
-
 import com.ctp.cdi.query.builder.QueryBuilder;
 import com.ctp.cdi.query.builder.QueryBuilderContext;
 import com.ctp.cdi.query.builder.QueryOperator;
@@ -36,12 +34,7 @@ class PropertyQueryPart extends BasePropertyQueryPart {
 
     @Override
     protected QueryPart buildQuery(QueryBuilderContext ctx) {
-        String[] args = new String[comparator.getParamNum() + 1];
-        args[0] = QueryBuilder.ENTITY_NAME + "." + name;
-        for (int i = 1; i < args.length; i++) {
-            args[i] = "?" + ctx.increment();
-        }
-        ctx.append(MessageFormat.format(comparator.getJpql(), (Object[]) args));
+        comparator.render(ctx, QueryBuilder.ENTITY_NAME + "." + name);
         return this;
     }
     
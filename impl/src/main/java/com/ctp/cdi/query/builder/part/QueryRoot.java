@@ -25,15 +25,29 @@ public class QueryRoot extends QueryPart {
     private final Logger log = Logger.getLogger(QueryRoot.class);
 
     private final String entityName;
+    private final String selection;
 
     private String jpqlQuery;
 
     protected QueryRoot(String entityName) {
+        this(entityName, null);
+    }
+
+    protected QueryRoot(String entityName, String selection) {
         this.entityName = entityName;
+        this.selection = selection;
     }
 
     public static QueryRoot create(String method, DaoComponent dao) {
-        QueryRoot root = new QueryRoot(dao.getEntityName());
+        return create(method, dao, null);
+    }
+
+    /**
+     * @param selection         Select clause items replacing the entity, e.g. for
+     *                          projections. Null selects the entity.
+     */
+    public static QueryRoot create(String method, DaoComponent dao, String selection) {
+        QueryRoot root = new QueryRoot(dao.getEntityName(), selection);
         root.build(method, method, dao);
         root.createJpql();
         return root;
@@ -67,7 +81,8 @@ public class QueryRoot extends QueryPart {
 
     @Override
     protected QueryPart buildQuery(QueryBuilderContext ctx) {
-        ctx.append(QueryBuilder.selectQuery(entityName));
+        ctx.append(selection == null ? QueryBuilder.selectQuery(entityName)
+                : QueryBuilder.selectQuery(selection, entityName));
         if (hasChildren(excludedForWhereCheck())) {
             ctx.append(" where ");
         }
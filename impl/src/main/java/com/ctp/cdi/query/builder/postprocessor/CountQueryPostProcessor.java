@@ -7,81 +7,52 @@ import org.jboss.solder.logging.Logger;
 import com.ctp.cdi.query.handler.JpaQueryPostProcessor;
 import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
 import com.ctp.cdi.query.param.Parameters;
+import com.ctp.cdi.query.util.LruCache;
 import com.ctp.cdi.query.util.QueryUtils;
 import com.ctp.cdi.query.util.jpa.QueryStringExtractorFactory;
+import com.ctp.cdi.query.util.jpql.JpqlQuery;
 
+/**
+ * Replaces a query by a query counting its results. The count form of a query
+ * string is derived once with {@link JpqlQuery#toCountQuery()} and cached, so
+ * repeated counts on the same query only pay for creating the JPA query.
+ */
 public class CountQueryPostProcessor implements JpaQueryPostProcessor {
     
+    private static final int MAX_CACHED_QUERIES = 512;
+    private static final LruCache<String, String> COUNT_QUERIES = new LruCache<String, String>(MAX_CACHED_QUERIES);
+
     private final Logger log = Logger.getLogger(CountQueryPostProcessor.class);
-    private final QueryStringExtractorFactory factory = new QueryStringExtractorFactory();
     
     @Override
     public Query postProcess(CdiQueryInvocationContext context, Query query) {
         String queryString = getQueryString(context, query);
-        QueryExtraction extract = new QueryExtraction(queryString);
-        String count = extract.rewriteToCount();
-        log.debugv("Rewrote query {0} to {1}", queryString, count);
+        String count = countQuery(queryString);
         Query result = context.getEntityManager().createQuery(count);
         Parameters params = context.getParams();
         params.applyTo(result);
         return result;
     }
     
-    private String getQueryString(CdiQueryInvocationContext context, Query query) {
-        if (QueryUtils.isNotEmpty(context.getQueryString())) {
-            return context.getQueryString();
+    private String countQuery(String queryString) {
+        String count = COUNT_QUERIES.get(queryString);
+        if (count == null) {
+            count = JpqlQuery.parse(queryString).toCountQuery();
+            log.debugv("Rewrote query {0} to {1}", queryString, count);
+            COUNT_QUERIES.put(queryString, count);
         }
-        return factory.select(query).extractFrom(query);
+        return count;
     }
 
-    private static class QueryExtraction {
-        
-        private String select;
-        private String from;
-        private String where;
-        
-        private String entityName;
-        private final String query;
-        
-        public QueryExtraction(String query) {
-            this.query = query;
-        }
-        
-        public String rewriteToCount() {
-            splitQuery();
-            extractEntityName();
-            return rewrite();
-        }
-
-        private String rewrite() {
-            return "select count(" + (select != null ? select : entityName) + ") " + from + where;
-        }
-
-        private void extractEntityName() {
-            String[] split = from.split(" ");
-            if (split.length > 1) {
-                entityName = split[split.length - 1];
-            } else {
-                entityName = "*";
-            }
+    private String getQueryString(CdiQueryInvocationContext context, Query query) {
+        if (QueryUtils.isNotEmpty(context.getQueryString())) {
+            return context.getQueryString();
         }
-
-        private void splitQuery() {
-            String lower = query.toLowerCase();
-            int selectIndex = lower.indexOf("select");
-            int fromIndex = lower.indexOf("from");
-            int whereIndex = lower.indexOf("where");
-            if (selectIndex >= 0) {
-                select = query.substring("select".length(), fromIndex);
-            }
-            if (whereIndex >= 0) {
-                from = query.substring(fromIndex, whereIndex);
-                where = query.substring(whereIndex);
-            } else {
-                from = query.substring(fromIndex);
-            }
+        com.ctp.cdi.query.Query annotation = context.getMethod().getAnnotation(com.ctp.cdi.query.Query.class);
+        if (annotation != null && QueryUtils.isNotEmpty(annotation.named())) {
+            return QueryStringExtractorFactory.instance().extractNamed(context.getEntityManager(), annotation.named());
         }
-        
+        return QueryStringExtractorFactory.instance().extractFrom(context.getEntityManager(), query);
     }
 
 }
@@ -0,0 +1,66 @@
+package com.ctp.cdi.query.builder.postprocessor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.solder.properties.Property;
+import org.jboss.solder.properties.query.NamedPropertyCriteria;
+import org.jboss.solder.properties.query.PropertyQueries;
+
+import com.ctp.cdi.query.handler.QueryStringPostProcessor;
+import com.ctp.cdi.query.util.jpql.JpqlQuery;
+
+/**
+ * Adds fetch joins for attributes of the root entity with
+ * {@link JpqlQuery#withFetchJoins(List, boolean)}, selecting distinct results
+ * if a collection is fetched. The last rewrite is kept, as the processor
+ * mostly sees the same query string again.
+ */
+public class FetchJoinQueryStringPostProcessor implements QueryStringPostProcessor {
+
+    private final List<String> attributes;
+    private final boolean distinct;
+
+    private volatile String[] lastRewrite;
+
+    public FetchJoinQueryStringPostProcessor(List<String> attributes, boolean distinct) {
+        this.attributes = attributes;
+        this.distinct = distinct;
+    }
+
+    /**
+     * @param entityClass       Root entity of the query.
+     * @param attributes        Attribute names to fetch.
+     */
+    public static FetchJoinQueryStringPostProcessor forAttributes(Class<?> entityClass, String... attributes) {
+        boolean distinct = false;
+        for (String attribute : attributes) {
+            distinct |= isCollection(entityClass, attribute);
+        }
+        return new FetchJoinQueryStringPostProcessor(Arrays.asList(attributes), distinct);
+    }
+
+    @Override
+    public String postProcess(String queryString) {
+        String[] rewrite = lastRewrite;
+        if (rewrite != null && rewrite[0].equals(queryString)) {
+            return rewrite[1];
+        }
+        String result = JpqlQuery.parse(queryString).withFetchJoins(attributes, distinct);
+        lastRewrite = new String[] { queryString, result };
+        return result;
+    }
+
+    private static boolean isCollection(Class<?> entityClass, String attribute) {
+        Property<Object> property = PropertyQueries.<Object>createQuery(entityClass)
+                .addCriteria(new NamedPropertyCriteria(attribute)).getFirstResult();
+        if (property == null) {
+            throw new IllegalArgumentException("Entity " + entityClass + " has no attribute " + attribute);
+        }
+        Class<?> type = property.getJavaClass();
+        return Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+}
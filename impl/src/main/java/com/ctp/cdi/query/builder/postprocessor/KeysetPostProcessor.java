@@ -0,0 +1,108 @@
+package com.ctp.cdi.query.builder.postprocessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.builder.OrderDirection;
+import com.ctp.cdi.query.builder.QueryBuilder;
+import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
+import com.ctp.cdi.query.handler.JpaQueryPostProcessor;
+import com.ctp.cdi.query.handler.QueryStringPostProcessor;
+import com.ctp.cdi.query.util.jpql.JpqlQuery;
+
+/**
+ * Restricts a query to the rows following a key, based on the order by
+ * attributes registered on the query. As JPQL has no row value comparison,
+ * the predicate {@code (a, b) > (:a, :b)} is expanded to
+ * {@code a > :a or (a = :a and b > :b)}, which also allows mixed directions.
+ * The predicate is added to the top level where clause of the parsed query.
+ * Has to run after the order by processors, and binds the key values on the
+ * created query.
+ */
+public class KeysetPostProcessor implements QueryStringPostProcessor, JpaQueryPostProcessor {
+
+    private static final String PARAM_PREFIX = "keyset";
+
+    private final List<QueryStringPostProcessor> processors;
+    private final Object[] key;
+
+    private int firstPosition;
+
+    public KeysetPostProcessor(List<QueryStringPostProcessor> processors, Object[] key) {
+        this.processors = processors;
+        this.key = key;
+    }
+
+    @Override
+    public String postProcess(String queryString) {
+        List<OrderByQueryStringPostProcessor> orderBy = orderBy();
+        if (orderBy.isEmpty()) {
+            throw new IllegalStateException("Keyset pagination needs an ordered query, " +
+                    "add ordering attributes with orderAsc or orderDesc");
+        }
+        if (orderBy.size() != key.length) {
+            throw new IllegalStateException("Keyset pagination needs one key value per ordering attribute, " +
+                    "ordered by " + orderBy.size() + " attributes but got " + key.length + " values");
+        }
+        JpqlQuery query = JpqlQuery.parse(queryString);
+        int maxPosition = query.getMaxPosition();
+        firstPosition = maxPosition > 0 ? maxPosition + 1 : 0;
+        StringBuilder predicate = new StringBuilder(64 * key.length);
+        appendPredicate(predicate, orderBy);
+        return query.withRestriction(predicate.toString());
+    }
+
+    @Override
+    public Query postProcess(CdiQueryInvocationContext context, Query query) {
+        for (int i = 0; i < key.length; i++) {
+            if (firstPosition > 0) {
+                query.setParameter(firstPosition + i, key[i]);
+            } else {
+                query.setParameter(PARAM_PREFIX + i, key[i]);
+            }
+        }
+        return query;
+    }
+
+    private void appendPredicate(StringBuilder result, List<OrderByQueryStringPostProcessor> orderBy) {
+        result.append("(");
+        for (int i = 0; i < orderBy.size(); i++) {
+            if (i > 0) {
+                result.append(" or ");
+            }
+            result.append("(");
+            for (int j = 0; j < i; j++) {
+                appendPath(result, orderBy.get(j)).append(" = ");
+                appendParam(result, j).append(" and ");
+            }
+            OrderByQueryStringPostProcessor current = orderBy.get(i);
+            appendPath(result, current).append(current.getDirection() == OrderDirection.ASC ? " > " : " < ");
+            appendParam(result, i).append(")");
+        }
+        result.append(")");
+    }
+
+    private StringBuilder appendPath(StringBuilder result, OrderByQueryStringPostProcessor orderBy) {
+        return result.append(QueryBuilder.ENTITY_NAME).append(".").append(orderBy.getAttribute());
+    }
+
+    private StringBuilder appendParam(StringBuilder result, int index) {
+        if (firstPosition > 0) {
+            return result.append("?").append(firstPosition + index);
+        }
+        return result.append(":").append(PARAM_PREFIX).append(index);
+    }
+
+    private List<OrderByQueryStringPostProcessor> orderBy() {
+        List<OrderByQueryStringPostProcessor> result = new ArrayList<OrderByQueryStringPostProcessor>();
+        for (QueryStringPostProcessor processor : processors) {
+            if (processor instanceof OrderByQueryStringPostProcessor) {
+                result.add((OrderByQueryStringPostProcessor) processor);
+            }
+        }
+        return result;
+    }
+
+}
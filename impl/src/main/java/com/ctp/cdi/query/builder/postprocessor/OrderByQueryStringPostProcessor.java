@@ -47,6 +47,13 @@ public class OrderByQueryStringPostProcessor implements QueryStringPostProcessor
     public void changeDirection() {
         direction = direction.change();
     }
-    
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public OrderDirection getDirection() {
+        return direction;
+    }
 
 }
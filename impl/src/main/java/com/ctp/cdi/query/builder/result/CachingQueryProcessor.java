@@ -0,0 +1,159 @@
+package com.ctp.cdi.query.builder.result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
+import com.ctp.cdi.query.spi.QueryResultCache;
+
+/**
+ * Looks up the result of a {@link CacheResult} method by its parameter values
+ * before executing the query. Entities are cached by identifier and found again
+ * in the caller's entity manager, so no entity instance is shared between
+ * persistence contexts. Scalars and projections are cached as they are.
+ */
+class CachingQueryProcessor implements QueryProcessor {
+
+    private final QueryProcessor delegate;
+    private final String region;
+    private final CacheResult settings;
+    private final Set<Class<?>> entities;
+
+    CachingQueryProcessor(QueryProcessor delegate, String region, CacheResult settings, Set<Class<?>> entities) {
+        this.delegate = delegate;
+        this.region = region;
+        this.settings = settings;
+        this.entities = entities;
+    }
+
+    @Override
+    public Object executeQuery(Query query, CdiQueryInvocationContext context) {
+        QueryResultCache cache = context.getResultCache();
+        if (cache == null) {
+            return delegate.executeQuery(query, context);
+        }
+        EntityManager entityManager = context.getEntityManager();
+        List<Object> key = key(context.getMethodParameters());
+        Object cached = cache.get(region, key);
+        if (cached != null) {
+            Object result = resolve(cached, entityManager);
+            if (result != null) {
+                return result;
+            }
+        }
+        Object result = delegate.executeQuery(query, context);
+        if (result != null) {
+            cache.put(region, key, detach(result, entityManager), settings, entities);
+        }
+        return result;
+    }
+
+    private List<Object> key(Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(parameters.clone());
+    }
+
+    /**
+     * Replaces entities by references holding their type and identifier. Lists and
+     * rows are copied, so the cache never holds structures the caller can modify.
+     */
+    private Object detach(Object result, EntityManager entityManager) {
+        if (result instanceof List) {
+            List<?> list = (List<?>) result;
+            List<Object> copy = new ArrayList<Object>(list.size());
+            for (Object element : list) {
+                copy.add(detach(element, entityManager));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (result instanceof Object[]) {
+            Object[] row = (Object[]) result;
+            Object[] copy = new Object[row.length];
+            for (int i = 0; i < row.length; i++) {
+                copy[i] = detach(row[i], entityManager);
+            }
+            return copy;
+        }
+        Class<?> entityClass = entityClass(result, entityManager);
+        if (entityClass == null) {
+            return result;
+        }
+        Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(result);
+        return new EntityReference(entityClass, id);
+    }
+
+    /**
+     * @return          The cached result with entities of the caller's persistence context,
+     *                  or {@code null} if one of them does not exist anymore.
+     */
+    private Object resolve(Object cached, EntityManager entityManager) {
+        if (cached instanceof List) {
+            List<?> list = (List<?>) cached;
+            List<Object> result = new ArrayList<Object>(list.size());
+            for (Object element : list) {
+                Object resolved = resolve(element, entityManager);
+                if (resolved == null && element != null) {
+                    return null;
+                }
+                result.add(resolved);
+            }
+            return result;
+        }
+        if (cached instanceof Object[]) {
+            Object[] row = (Object[]) cached;
+            Object[] result = new Object[row.length];
+            for (int i = 0; i < row.length; i++) {
+                result[i] = resolve(row[i], entityManager);
+                if (result[i] == null && row[i] != null) {
+                    return null;
+                }
+            }
+            return result;
+        }
+        if (cached instanceof EntityReference) {
+            EntityReference reference = (EntityReference) cached;
+            return entityManager.find(reference.entityClass, reference.id);
+        }
+        return cached;
+    }
+
+    /**
+     * Walks up the hierarchy, as providers might return proxy subclasses.
+     */
+    private Class<?> entityClass(Object value, EntityManager entityManager) {
+        if (value == null) {
+            return null;
+        }
+        for (Class<?> type = value.getClass(); type != null && !Object.class.equals(type);
+                type = type.getSuperclass()) {
+            try {
+                entityManager.getMetamodel().entity(type);
+                return type;
+            } catch (IllegalArgumentException e) {
+                // Not an entity
+            }
+        }
+        return null;
+    }
+
+    private static final class EntityReference {
+
+        private final Class<?> entityClass;
+        private final Object id;
+
+        private EntityReference(Class<?> entityClass, Object id) {
+            this.entityClass = entityClass;
+            this.id = id;
+        }
+    }
+
+}
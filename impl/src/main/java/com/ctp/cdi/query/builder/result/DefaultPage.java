@@ -0,0 +1,61 @@
+package com.ctp.cdi.query.builder.result;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.ctp.cdi.query.Page;
+
+public class DefaultPage<E> implements Page<E>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<E> items;
+    private final long total;
+    private final int number;
+    private final int size;
+    private final boolean next;
+
+    public DefaultPage(List<E> items, long total, int number, int size, boolean next) {
+        this.items = items;
+        this.total = total;
+        this.number = number;
+        this.size = size;
+        this.next = next;
+    }
+
+    @Override
+    public List<E> getItems() {
+        return items;
+    }
+
+    @Override
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public int getNumber() {
+        return number;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getPageCount() {
+        return size > 0 ? (int) Math.ceil((double) total / size) : 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "Page " + number + " of " + getPageCount() + " (" + items.size() + " of " + total + " results)";
+    }
+
+}
@@ -1,25 +1,37 @@
 package com.ctp.cdi.query.builder.result;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
 import javax.persistence.Query;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.SingularAttribute;
 
+import org.jboss.solder.properties.Property;
+import org.jboss.solder.properties.query.NamedPropertyCriteria;
+import org.jboss.solder.properties.query.PropertyQueries;
+
+import com.ctp.cdi.query.Page;
 import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
 import com.ctp.cdi.query.builder.OrderDirection;
 import com.ctp.cdi.query.builder.QueryBuilder;
 import com.ctp.cdi.query.builder.postprocessor.CountQueryPostProcessor;
+import com.ctp.cdi.query.builder.postprocessor.FetchJoinQueryStringPostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.FirstResultPostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.FlushModePostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.HintPostProcessor;
+import com.ctp.cdi.query.builder.postprocessor.KeysetPostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.LockModePostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.MaxResultPostProcessor;
 import com.ctp.cdi.query.builder.postprocessor.OrderByQueryStringPostProcessor;
 import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
 import com.ctp.cdi.query.handler.QueryStringPostProcessor;
+import com.ctp.cdi.query.param.Parameters;
 
 public class DefaultQueryResult<T> implements QueryResult<T> {
     
@@ -28,6 +40,15 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
     
     private int page = 0;
     private int pageSize = 10;
+    private int firstResult = 0;
+    private boolean limited = false;
+    private boolean positioned = false;
+
+    private boolean keyset = false;
+    private KeysetPostProcessor keysetProcessor;
+    private Object lastRow;
+    private boolean startedAfterKey = false;
+    private List<KeyPath> keyPaths = Collections.emptyList();
 
     public DefaultQueryResult(QueryBuilder builder, CdiQueryInvocationContext context) {
         this.builder = builder;
@@ -98,16 +119,33 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
         return this;
     }
     
+    @Override
+    public QueryResult<T> fetch(Attribute<T, ?> attribute) {
+        context.addQueryStringPostProcessor(new FetchJoinQueryStringPostProcessor(
+                Collections.singletonList(attribute.getName()), attribute.isCollection()));
+        return this;
+    }
+    
+    @Override
+    public QueryResult<T> fetch(String attribute) {
+        context.addQueryStringPostProcessor(
+                FetchJoinQueryStringPostProcessor.forAttributes(context.getEntityClass(), attribute));
+        return this;
+    }
+    
     @Override
     public QueryResult<T> maxResults(int max) {
         context.addJpaQueryPostProcessor(new MaxResultPostProcessor(max));
         pageSize = max;
+        limited = true;
         return this;
     }
 
     @Override
     public QueryResult<T> firstResult(int first) {
         context.addJpaQueryPostProcessor(new FirstResultPostProcessor(first));
+        firstResult = first;
+        positioned = true;
         return this;
     }
 
@@ -132,18 +170,38 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
     @Override
     @SuppressWarnings("unchecked")
     public List<T> getResultList() {
-        return ((Query) builder.execute(context)).getResultList();
+        prepareKeyset();
+        List<T> result = ((Query) builder.execute(context)).getResultList();
+        if (keyset) {
+            lastRow = result.isEmpty() ? null : result.get(result.size() - 1);
+        }
+        return result;
+    }
+
+    @Override
+    public ResultCursor<T> getResultCursor() {
+        return getResultCursor(QueryProcessorFactory.DEFAULT_FETCH_SIZE, 0);
+    }
+
+    @Override
+    public ResultCursor<T> getResultCursor(int fetchSize, int clearEvery) {
+        prepareKeyset();
+        Query query = (Query) builder.execute(context);
+        return QueryProcessorFactory.stream(query, context, fetchSize, clearEvery);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public T getSingleResult() {
+        prepareKeyset();
         return (T) ((Query) builder.execute(context)).getSingleResult();
     }
 
     @Override
     public long count() {
         CountQueryPostProcessor counter = new CountQueryPostProcessor();
+        KeysetPostProcessor keysetRestriction = keysetProcessor;
+        removeKeyset();
         context.addJpaQueryPostProcessor(counter);
         try {
             Long result = (Long) ((Query) builder.execute(context)).getSingleResult();
@@ -154,9 +212,21 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
             throw new RuntimeException(e);
         } finally {
             context.removeJpaQueryPostProcessor(counter);
+            addKeyset(keysetRestriction);
         }
     }
     
+    @Override
+    public Page<T> getPage() {
+        List<T> items = getResultList();
+        if (startedAfterKey) {
+            return new DefaultPage<T>(items, count(), page, pageSize, limited && items.size() == pageSize);
+        }
+        long offset = keyset ? (long) page * pageSize : effectiveFirstResult();
+        long total = isLastPage(items, offset) ? offset + items.size() : count();
+        return new DefaultPage<T>(items, total, page, effectiveMaxResults(items), offset + items.size() < total);
+    }
+    
     @Override
     public QueryResult<T> withPageSize(int pageSize) {
         return maxResults(pageSize);
@@ -164,22 +234,63 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
 
     @Override
     public QueryResult<T> toPage(int page) {
+        if (keyset) {
+            if (page == 0) {
+                this.page = 0;
+                lastRow = null;
+                startedAfterKey = false;
+                removeKeyset();
+                return this;
+            }
+            if (page == this.page + 1) {
+                return nextPage();
+            }
+            throw new UnsupportedOperationException("Keyset pagination can only move to the next page");
+        }
         this.page = page;
         return firstResult(pageSize * page);
     }
 
     @Override
     public QueryResult<T> nextPage() {
+        if (keyset) {
+            if (lastRow == null) {
+                throw new IllegalStateException("Keyset pagination needs the non-empty result of the " +
+                        "current page before moving to the next one");
+            }
+            addKeyset(new KeysetPostProcessor(context.getQueryStringPostProcessors(), extractKey(lastRow)));
+            lastRow = null;
+            page = page + 1;
+            return this;
+        }
         page = page + 1;
         return firstResult(pageSize * page);
     }
 
     @Override
     public QueryResult<T> previousPage() {
+        if (keyset) {
+            throw new UnsupportedOperationException("Keyset pagination can only move to the next page");
+        }
         page = page > 0 ? page - 1 : page;
         return firstResult(pageSize * page);
     }
 
+    @Override
+    public QueryResult<T> keyset() {
+        keyset = true;
+        return this;
+    }
+
+    @Override
+    public QueryResult<T> afterKey(Object... key) {
+        keyset = true;
+        lastRow = null;
+        startedAfterKey = true;
+        addKeyset(new KeysetPostProcessor(context.getQueryStringPostProcessors(), key));
+        return this;
+    }
+
     @Override
     public int countPages() {
         return (int) Math.ceil((double) count() / pageSize);
@@ -195,6 +306,38 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
         return pageSize;
     }
 
+    /**
+     * A page which is not full ends the result, so the total follows from its
+     * offset. An empty page only does so on the first page, as it might as well
+     * be behind the last result. This only holds if the page size was set here,
+     * the DAO method might limit the result on its own otherwise.
+     */
+    private boolean isLastPage(List<T> items, long offset) {
+        if (!limited || (keyset && context.getParams().hasFirstResult())) {
+            return false;
+        }
+        return items.size() < pageSize && (!items.isEmpty() || offset == 0);
+    }
+
+    /**
+     * The first result set here replaces the one of the DAO method.
+     */
+    private int effectiveFirstResult() {
+        if (positioned) {
+            return firstResult;
+        }
+        Parameters params = context.getParams();
+        return params.hasFirstResult() ? params.getFirstResult() : 0;
+    }
+
+    private int effectiveMaxResults(List<T> items) {
+        if (limited) {
+            return pageSize;
+        }
+        Parameters params = context.getParams();
+        return params.hasSizeRestriction() ? params.getSizeRestriciton() : items.size();
+    }
+
     private <X> QueryResult<T> changeOrder(ChangeOrder changeOrder) {
         for (QueryStringPostProcessor processor : context.getQueryStringPostProcessors()) {
             if (processor instanceof OrderByQueryStringPostProcessor) {
@@ -209,6 +352,113 @@ public class DefaultQueryResult<T> implements QueryResult<T> {
         return this;
     }
     
+    /**
+     * The keyset restriction has to be applied after all order by clauses are added.
+     */
+    private void prepareKeyset() {
+        if (keysetProcessor != null) {
+            context.removeQueryStringPostProcessor(keysetProcessor);
+            context.addQueryStringPostProcessor(keysetProcessor);
+        }
+    }
+
+    private void addKeyset(KeysetPostProcessor processor) {
+        removeKeyset();
+        if (processor != null) {
+            context.addQueryStringPostProcessor(processor);
+            context.addJpaQueryPostProcessor(processor);
+            keysetProcessor = processor;
+        }
+    }
+
+    private void removeKeyset() {
+        if (keysetProcessor != null) {
+            context.removeQueryStringPostProcessor(keysetProcessor);
+            context.removeJpaQueryPostProcessor(keysetProcessor);
+            keysetProcessor = null;
+        }
+    }
+
+    private Object[] extractKey(Object row) {
+        List<KeyPath> paths = keyPaths();
+        Object[] result = new Object[paths.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = paths.get(i).read(row);
+        }
+        return result;
+    }
+
+    /**
+     * Key paths of the current ordering. Resolved again only if the ordering
+     * attributes changed.
+     */
+    private List<KeyPath> keyPaths() {
+        List<String> attributes = new ArrayList<String>();
+        for (QueryStringPostProcessor processor : context.getQueryStringPostProcessors()) {
+            if (processor instanceof OrderByQueryStringPostProcessor) {
+                attributes.add(((OrderByQueryStringPostProcessor) processor).getAttribute());
+            }
+        }
+        boolean changed = attributes.size() != keyPaths.size();
+        for (int i = 0; !changed && i < attributes.size(); i++) {
+            changed = !keyPaths.get(i).path.equals(attributes.get(i));
+        }
+        if (changed) {
+            List<KeyPath> result = new ArrayList<KeyPath>(attributes.size());
+            for (String attribute : attributes) {
+                result.add(new KeyPath(attribute));
+            }
+            keyPaths = result;
+        }
+        return keyPaths;
+    }
+
+    /**
+     * Reads an attribute path from result rows. The property of each path element
+     * is looked up for the class of the first value read and kept as long as
+     * following values have the same class.
+     */
+    private static final class KeyPath {
+
+        private final String path;
+        private final String[] names;
+        private final Class<?>[] classes;
+        private final List<Property<Object>> properties;
+
+        private KeyPath(String path) {
+            this.path = path;
+            this.names = path.split("\\.");
+            this.classes = new Class<?>[names.length];
+            this.properties = new ArrayList<Property<Object>>(Collections.<Property<Object>>nCopies(names.length, null));
+        }
+
+        Object read(Object row) {
+            Object current = row;
+            for (int i = 0; i < names.length; i++) {
+                if (current == null) {
+                    return null;
+                }
+                current = property(i, current, row).getValue(current);
+            }
+            return current;
+        }
+
+        private Property<Object> property(int index, Object value, Object row) {
+            if (value.getClass() == classes[index]) {
+                return properties.get(index);
+            }
+            Property<Object> property = PropertyQueries.createQuery(value.getClass())
+                    .addCriteria(new NamedPropertyCriteria(names[index])).getFirstResult();
+            if (property == null) {
+                throw new IllegalStateException("Keyset pagination: Cannot read " + path + " from " + row);
+            }
+            property.setAccessible();
+            properties.set(index, property);
+            classes[index] = value.getClass();
+            return property;
+        }
+    }
+
     private static abstract class ChangeOrder {
         
         public abstract boolean matches(OrderByQueryStringPostProcessor orderBy);
@@ -0,0 +1,274 @@
+package com.ctp.cdi.query.builder.result;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.persistence.Entity;
+
+import org.jboss.solder.properties.Property;
+import org.jboss.solder.properties.query.NamedPropertyCriteria;
+import org.jboss.solder.properties.query.PropertyQueries;
+
+import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Result type of a query which is neither the entity nor a basic type. The
+ * properties of the projection which match an entity attribute by name are
+ * selected in alphabetical order, and each row is mapped back into a new instance.
+ * Classes need a default constructor and are populated by field, interfaces are
+ * implemented with a proxy returning the selected values from their getters.
+ * The type of each projection property has to accept the type of its attribute.
+ */
+public final class Projection {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private final Class<?> type;
+    private final String[] attributes;
+    private final Field[] fields;
+    private final Constructor<?> constructor;
+
+    private Projection(Class<?> type, String[] attributes, Field[] fields, Constructor<?> constructor) {
+        this.type = type;
+        this.attributes = attributes;
+        this.fields = fields;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Whether a query result of the given type has to be mapped from the entity attributes.
+     */
+    public static boolean isProjection(Class<?> type, Class<?> entityClass) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isAssignableFrom(entityClass)) {
+            return false;
+        }
+        if (QueryResult.class.equals(type) || ResultCursor.class.equals(type) || type.isAnnotationPresent(Entity.class)) {
+            return false;
+        }
+        return !type.getName().startsWith("java.") && !type.getName().startsWith("javax.");
+    }
+
+    /**
+     * Resolves the mapping with reflection, callers keep the result for reuse.
+     */
+    public static Projection of(Class<?> type, Class<?> entityClass) {
+        return create(type, entityClass);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Select clause items for the matching attributes, e.g. {@code e.age, e.name}.
+     */
+    public String getSelection(String alias) {
+        StringBuilder result = new StringBuilder();
+        for (String attribute : attributes) {
+            result.append(result.length() > 0 ? ", " : "").append(alias).append(".").append(attribute);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param row               A query row, an array for multiple selected attributes.
+     */
+    public Object map(Object row) {
+        if (row == null) {
+            return null;
+        }
+        Object[] values = attributes.length == 1 ? new Object[] { row } : (Object[]) row;
+        return type.isInterface() ? proxy(values) : instance(values);
+    }
+
+    public List<Object> mapAll(List<?> rows) {
+        List<Object> result = new ArrayList<Object>(rows.size());
+        for (Object row : rows) {
+            result.add(map(row));
+        }
+        return result;
+    }
+
+    private Object instance(Object[] values) {
+        try {
+            Object result = constructor.newInstance();
+            for (int i = 0; i < fields.length; i++) {
+                if (values[i] != null || !fields[i].getType().isPrimitive()) {
+                    fields[i].set(result, values[i]);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create projection " + type.getName(), e);
+        }
+    }
+
+    private Object proxy(Object[] values) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        for (int i = 0; i < attributes.length; i++) {
+            properties.put(attributes[i], values[i]);
+        }
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new ProjectionHandler(type, properties));
+    }
+
+    private static Projection create(Class<?> type, Class<?> entityClass) {
+        SortedMap<String, Field> properties = type.isInterface() ? getterProperties(type) : fieldProperties(type);
+        List<String> attributes = new ArrayList<String>();
+        List<Field> fields = new ArrayList<Field>();
+        for (Map.Entry<String, Field> property : properties.entrySet()) {
+            Property<Object> attribute = PropertyQueries.<Object>createQuery(entityClass)
+                    .addCriteria(new NamedPropertyCriteria(property.getKey())).getFirstResult();
+            if (attribute != null) {
+                verifyType(type, property.getKey(), property.getValue(), attribute);
+                attributes.add(property.getKey());
+                fields.add(property.getValue());
+            }
+        }
+        if (attributes.isEmpty()) {
+            throw new IllegalStateException("Projection " + type.getName() + " has no property matching an attribute of "
+                    + entityClass.getName());
+        }
+        return new Projection(type, attributes.toArray(new String[attributes.size()]),
+                fields.toArray(new Field[fields.size()]), type.isInterface() ? null : constructor(type));
+    }
+
+    private static void verifyType(Class<?> type, String name, Field field, Property<Object> attribute) {
+        Class<?> propertyType = field != null ? field.getType() : getterType(type, name);
+        if (!wrap(propertyType).isAssignableFrom(wrap(attribute.getJavaClass()))) {
+            throw new IllegalStateException("Property " + name + " of projection " + type.getName() + " has type "
+                    + propertyType.getName() + ", but the attribute has type " + attribute.getJavaClass().getName());
+        }
+    }
+
+    private static Class<?> getterType(Class<?> type, String name) {
+        for (Method method : type.getMethods()) {
+            if (name.equals(propertyName(method))) {
+                return method.getReturnType();
+            }
+        }
+        return Object.class;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? WRAPPERS.get(type) : type;
+    }
+
+    private static SortedMap<String, Field> fieldProperties(Class<?> type) {
+        SortedMap<String, Field> result = new TreeMap<String, Field>();
+        for (Class<?> current = type; current != null && !Object.class.equals(current);
+                current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || result.containsKey(field.getName())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                result.put(field.getName(), field);
+            }
+        }
+        return result;
+    }
+
+    private static SortedMap<String, Field> getterProperties(Class<?> type) {
+        SortedMap<String, Field> result = new TreeMap<String, Field>();
+        for (Method method : type.getMethods()) {
+            String property = propertyName(method);
+            if (property != null) {
+                result.put(property, null);
+            }
+        }
+        return result;
+    }
+
+    private static String propertyName(Method method) {
+        if (method.getParameterTypes().length > 0 || Void.TYPE.equals(method.getReturnType())) {
+            return null;
+        }
+        String name = method.getName();
+        int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            return null;
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static Constructor<?> constructor(Class<?> type) {
+        try {
+            Constructor<?> result = type.getDeclaredConstructor();
+            result.setAccessible(true);
+            return result;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Projection " + type.getName() + " needs a default constructor", e);
+        }
+    }
+
+    private static final class ProjectionHandler implements InvocationHandler {
+
+        private final Class<?> type;
+        private final Map<String, Object> properties;
+
+        private ProjectionHandler(Class<?> type, Map<String, Object> properties) {
+            this.type = type;
+            this.properties = properties;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterTypes().length == 1) {
+                return proxy == args[0] || (args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                        && equals(Proxy.getInvocationHandler(args[0])));
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                return hashCode();
+            }
+            if ("toString".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                return type.getSimpleName() + properties;
+            }
+            String property = propertyName(method);
+            Object value = property != null ? properties.get(property) : null;
+            if (value == null && method.getReturnType().isPrimitive()) {
+                throw new IllegalStateException("No value for primitive property " + method.getName()
+                        + " of projection " + type.getName());
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ProjectionHandler)) {
+                return false;
+            }
+            ProjectionHandler other = (ProjectionHandler) obj;
+            return type.equals(other.type) && properties.equals(other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode() * 31 + properties.hashCode();
+        }
+    }
+
+}
@@ -2,8 +2,10 @@ package com.ctp.cdi.query.builder.result;
 
 import javax.persistence.Query;
 
+import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
+
 public interface QueryProcessor {
 
-    Object executeQuery(Query query);
+    Object executeQuery(Query query, CdiQueryInvocationContext context);
 
 }
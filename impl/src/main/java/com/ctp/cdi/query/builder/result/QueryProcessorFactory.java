@@ -1,70 +1,205 @@
 package com.ctp.cdi.query.builder.result;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import javax.persistence.EntityManager;
 import javax.persistence.Query;
 
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.Cursor;
 import com.ctp.cdi.query.Modifying;
 import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
+import com.ctp.cdi.query.handler.CdiQueryInvocationContext;
+import com.ctp.cdi.query.meta.DaoComponent;
+import com.ctp.cdi.query.spi.QueryResultCache;
+import com.ctp.cdi.query.util.jpa.PagingQueryStreamer;
+import com.ctp.cdi.query.util.jpa.QueryStreamer;
+import com.ctp.cdi.query.util.jpa.QueryStreamerFactory;
+import com.ctp.cdi.query.util.jpql.JpqlQuery;
 
 public final class QueryProcessorFactory {
 
+    public static final int DEFAULT_FETCH_SIZE = 100;
+
     private final Method method;
+    private final Class<?> resultType;
+    private final Projection projection;
+    private final DaoComponent dao;
 
-    private QueryProcessorFactory(Method method) {
+    private QueryProcessorFactory(Method method, Class<?> resultType, Projection projection, DaoComponent dao) {
         this.method = method;
+        this.resultType = resultType;
+        this.projection = projection;
+        this.dao = dao;
     }
     
-    public static QueryProcessorFactory newInstance(Method method) {
-        return new QueryProcessorFactory(method);
+    /**
+     * @param method            The DAO method.
+     * @param resultType        Type produced by the query. Differs from the method return
+     *                          type for asynchronous methods returning a Future.
+     * @param projection        Maps the selected attributes into the result type,
+     *                          or null if the query selects entities.
+     * @param dao               The DAO the method belongs to.
+     */
+    public static QueryProcessorFactory newInstance(Method method, Class<?> resultType, Projection projection,
+            DaoComponent dao) {
+        return new QueryProcessorFactory(method, resultType, projection, dao);
     }
     
     public QueryProcessor build() {
         if (returns(QueryResult.class)) {
             return new NoOpQueryProcessor();
         }
+        if (streams()) {
+            return new StreamingQueryProcessor(method.getAnnotation(Cursor.class));
+        }
+        if (Iterator.class.equals(resultType)) {
+            return new IteratingQueryProcessor(projected(new ListQueryProcessor()));
+        }
         if (returns(List.class)) {
-            return new ListQueryProcessor();
+            return cached(projected(new ListQueryProcessor()));
         }
         if (isModifying()) {
             return new ExecuteUpdateQueryProcessor(returns(Void.TYPE));
         }
-        return new SingleResultQueryProcessor();
+        return cached(projected(new SingleResultQueryProcessor()));
+    }
+
+    private QueryProcessor projected(QueryProcessor processor) {
+        if (projection == null) {
+            return processor;
+        }
+        return new ProjectingQueryProcessor(processor, projection);
+    }
+    
+    private QueryProcessor cached(QueryProcessor processor) {
+        CacheResult settings = method.getAnnotation(CacheResult.class);
+        if (settings == null) {
+            return processor;
+        }
+        Set<Class<?>> entities = new HashSet<Class<?>>(Arrays.asList(settings.invalidatedBy()));
+        entities.add(dao.getEntityClass());
+        String region = dao.getDaoClass().getName() + "." + method.getName()
+                + Arrays.toString(method.getParameterTypes());
+        return new CachingQueryProcessor(processor, region, settings, Collections.unmodifiableSet(entities));
     }
     
     private boolean isModifying() {
-        boolean matchesType = Void.TYPE.equals(method.getReturnType()) ||
-                int.class.equals(method.getReturnType()) ||
-                Integer.class.equals(method.getReturnType());
+        boolean matchesType = Void.TYPE.equals(resultType) ||
+                int.class.equals(resultType) ||
+                Integer.class.equals(resultType);
         return method.isAnnotationPresent(Modifying.class) && matchesType;
     }
 
+    /**
+     * Only a {@link ResultCursor} can be closed by the caller, so Iterator and Iterable
+     * are read into a list instead of holding a cursor open.
+     */
+    private boolean streams() {
+        return ResultCursor.class.equals(resultType);
+    }
+
+    /**
+     * The paging fallback reads each page with a query of its own. Without an order,
+     * the database might return rows in a different order per page, and rows are
+     * skipped or repeated. Named queries without post processing have no known query
+     * string and are not checked.
+     */
+    static <E> ResultCursor<E> stream(Query query, CdiQueryInvocationContext context, int fetchSize,
+            int clearEvery) {
+        EntityManager entityManager = context.getEntityManager();
+        QueryStreamer streamer = QueryStreamerFactory.instance().select(entityManager, query);
+        String queryString = context.getQueryString();
+        if (streamer instanceof PagingQueryStreamer && queryString != null
+                && !JpqlQuery.parse(queryString).hasOrderBy()) {
+            throw new IllegalStateException("Streaming pages through the result with this persistence provider " +
+                    "needs an ordered query: " + queryString);
+        }
+        return streamer.stream(query, entityManager, fetchSize, clearEvery);
+    }
+
     private boolean returns(Class<?> clazz) {
-        return method.getReturnType().isAssignableFrom(clazz);
+        return resultType.isAssignableFrom(clazz);
     }
     
     private static final class ListQueryProcessor implements QueryProcessor {
         @Override
-        public Object executeQuery(Query query) {
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
             return query.getResultList();
         }
     }
     
+    private static final class StreamingQueryProcessor implements QueryProcessor {
+
+        private final int fetchSize;
+        private final int clearEvery;
+
+        private StreamingQueryProcessor(Cursor cursor) {
+            this.fetchSize = cursor != null ? cursor.fetchSize() : DEFAULT_FETCH_SIZE;
+            this.clearEvery = cursor != null ? cursor.clearEvery() : 0;
+        }
+
+        @Override
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
+            return stream(query, context, fetchSize, clearEvery);
+        }
+    }
+    
+    private static final class IteratingQueryProcessor implements QueryProcessor {
+
+        private final QueryProcessor delegate;
+
+        private IteratingQueryProcessor(QueryProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
+            return ((List<?>) delegate.executeQuery(query, context)).iterator();
+        }
+    }
+    
     private static final class NoOpQueryProcessor implements QueryProcessor {
         @Override
-        public Object executeQuery(Query query) {
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
             return query;
         }
     }
     
     private static final class SingleResultQueryProcessor implements QueryProcessor {
         @Override
-        public Object executeQuery(Query query) {
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
             return query.getSingleResult();
         }
     }
     
+    private static final class ProjectingQueryProcessor implements QueryProcessor {
+
+        private final QueryProcessor delegate;
+        private final Projection projection;
+
+        private ProjectingQueryProcessor(QueryProcessor delegate, Projection projection) {
+            this.delegate = delegate;
+            this.projection = projection;
+        }
+
+        @Override
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
+            Object result = delegate.executeQuery(query, context);
+            if (result instanceof List) {
+                return projection.mapAll((List<?>) result);
+            }
+            return projection.map(result);
+        }
+    }
+    
     private static final class ExecuteUpdateQueryProcessor implements QueryProcessor {
         
         private final boolean returnsVoid;
@@ -74,8 +209,12 @@ public final class QueryProcessorFactory {
         }
         
         @Override
-        public Object executeQuery(Query query) {
+        public Object executeQuery(Query query, CdiQueryInvocationContext context) {
             int result = query.executeUpdate();
+            QueryResultCache cache = context.getResultCache();
+            if (cache != null) {
+                cache.invalidate(context.getEntityClass());
+            }
             if (!returnsVoid) {
                 return result;
             }
@@ -0,0 +1,110 @@
+package com.ctp.cdi.query.cache;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.spi.QueryResultCache;
+import com.ctp.cdi.query.util.LruCache;
+
+/**
+ * In memory result cache. Keeps a size limited region per query method, and
+ * drops a region as a whole when one of the entity types it depends on is
+ * modified.
+ */
+@ApplicationScoped
+public class DefaultQueryResultCache implements QueryResultCache {
+
+    private final ConcurrentMap<String, Region> regions = new ConcurrentHashMap<String, Region>();
+
+    @Override
+    public Object get(String region, List<Object> key) {
+        Region cached = regions.get(region);
+        return cached != null ? cached.get(key) : null;
+    }
+
+    @Override
+    public void put(String region, List<Object> key, Object result, CacheResult settings, Set<Class<?>> entities) {
+        Region cached = regions.get(region);
+        if (cached == null) {
+            cached = new Region(settings, entities);
+            Region existing = regions.putIfAbsent(region, cached);
+            if (existing != null) {
+                cached = existing;
+            }
+        }
+        cached.put(key, result);
+    }
+
+    @Override
+    public void invalidate(Class<?> entityClass) {
+        for (Region region : regions.values()) {
+            if (region.dependsOn(entityClass)) {
+                region.clear();
+            }
+        }
+    }
+
+    private static final class Region {
+
+        private final LruCache<List<Object>, Entry> entries;
+        private final long timeToLive;
+        private final Set<Class<?>> entities;
+
+        Region(CacheResult settings, Set<Class<?>> entities) {
+            this.entries = new LruCache<List<Object>, Entry>(settings.maxSize());
+            this.timeToLive = settings.timeUnit().toMillis(settings.timeToLive());
+            this.entities = entities;
+        }
+
+        Object get(List<Object> key) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.isExpired()) {
+                return null;
+            }
+            return entry.value;
+        }
+
+        void put(List<Object> key, Object value) {
+            long expires = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+            entries.put(key, new Entry(value, expires));
+        }
+
+        /**
+         * Writes to a sub type change the results of queries on a super type,
+         * bulk writes on a super type also those on a sub type.
+         */
+        boolean dependsOn(Class<?> entityClass) {
+            for (Class<?> entity : entities) {
+                if (entity.isAssignableFrom(entityClass) || entityClass.isAssignableFrom(entity)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clear() {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expires;
+
+        Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expires;
+        }
+    }
+
+}
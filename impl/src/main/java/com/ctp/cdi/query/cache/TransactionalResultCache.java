@@ -0,0 +1,136 @@
+package com.ctp.cdi.query.cache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.solder.logging.Logger;
+
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.spi.QueryResultCache;
+
+/**
+ * Ties the {@link QueryResultCache} to JTA transactions. A write drops the affected
+ * results right away and once more after its transaction completed, as other
+ * transactions might have cached the previous state in between. A transaction with
+ * pending writes bypasses the cache, so results containing uncommitted changes are
+ * neither served from nor put into it. Without a transaction registry, results are
+ * only dropped right away.
+ *
+ * The registry is looked up when the bean is created, which happens on a container
+ * thread as the bean is injected into the query handler.
+ */
+@Typed(TransactionalResultCache.class)
+public class TransactionalResultCache implements QueryResultCache {
+
+    private static final String REGISTRY_NAME = "java:comp/TransactionSynchronizationRegistry";
+    private static final String WRITES_KEY = TransactionalResultCache.class.getName() + ".writes";
+
+    private final Logger log = Logger.getLogger(getClass());
+
+    @Inject
+    private QueryResultCache delegate;
+
+    private TransactionSynchronizationRegistry registry;
+
+    @PostConstruct
+    void lookupRegistry() {
+        try {
+            registry = (TransactionSynchronizationRegistry) new InitialContext().lookup(REGISTRY_NAME);
+        } catch (NamingException e) {
+            log.debugv("No transaction registry found, dropping cached results on write only: {0}",
+                    e.getMessage());
+        }
+    }
+
+    @Override
+    public Object get(String region, List<Object> key) {
+        if (hasPendingWrites()) {
+            return null;
+        }
+        return delegate.get(region, key);
+    }
+
+    @Override
+    public void put(String region, List<Object> key, Object result, CacheResult settings, Set<Class<?>> entities) {
+        if (hasPendingWrites()) {
+            return;
+        }
+        delegate.put(region, key, result, settings, entities);
+    }
+
+    @Override
+    public void invalidate(Class<?> entityClass) {
+        delegate.invalidate(entityClass);
+        Set<Class<?>> writes = transactionWrites();
+        if (writes != null) {
+            writes.add(entityClass);
+        }
+    }
+
+    private boolean hasPendingWrites() {
+        return isTransactionActive() && registry.getResource(WRITES_KEY) != null;
+    }
+
+    /**
+     * Entity types written in the current transaction, or {@code null} without an active
+     * JTA transaction. The first write registers the eviction after completion.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Class<?>> transactionWrites() {
+        if (!isTransactionActive()) {
+            return null;
+        }
+        Set<Class<?>> result = (Set<Class<?>>) registry.getResource(WRITES_KEY);
+        if (result == null) {
+            result = new HashSet<Class<?>>();
+            try {
+                registry.registerInterposedSynchronization(new Eviction(delegate, result));
+            } catch (IllegalStateException e) {
+                log.debugv("Transaction completing, dropping cached results on write only: {0}", e.getMessage());
+                return null;
+            }
+            registry.putResource(WRITES_KEY, result);
+        }
+        return result;
+    }
+
+    private boolean isTransactionActive() {
+        return registry != null && registry.getTransactionKey() != null;
+    }
+
+    private static final class Eviction implements Synchronization {
+
+        private final QueryResultCache cache;
+        private final Set<Class<?>> entities;
+
+        Eviction(QueryResultCache cache, Set<Class<?>> entities) {
+            this.cache = cache;
+            this.entities = entities;
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        /**
+         * Also runs on rollback, results cached by other transactions during the
+         * write are dropped either way.
+         */
+        @Override
+        public void afterCompletion(int status) {
+            for (Class<?> entity : entities) {
+                cache.invalidate(entity);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.ctp.cdi.query.criteria;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+
+/**
+ * Criteria query built once with a parameter per criteria value. Each execution
+ * creates the JPA query from the same criteria query and binds the values only.
+ *
+ * @param <R>   Result type.
+ */
+class CompiledQueryCriteria<R> implements CompiledCriteria<R> {
+
+    private final EntityManager entityManager;
+    private final CriteriaQuery<R> query;
+    private final List<ParameterExpression<?>> parameters;
+    private final Object[] values;
+
+    CompiledQueryCriteria(EntityManager entityManager, CriteriaQuery<R> query,
+            List<ParameterExpression<?>> parameters, List<Object> values) {
+        this.entityManager = entityManager;
+        this.query = query;
+        this.parameters = parameters;
+        this.values = values.toArray();
+    }
+
+    @Override
+    public TypedQuery<R> createQuery(Object... values) {
+        Object[] bound = values.length == 0 ? this.values : values;
+        if (bound.length != parameters.size()) {
+            throw new IllegalArgumentException("Compiled criteria takes " + parameters.size() +
+                    " values, got " + bound.length);
+        }
+        TypedQuery<R> result = entityManager.createQuery(query);
+        for (int i = 0; i < bound.length; i++) {
+            bind(result, parameters.get(i), bound[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<R> getResultList(Object... values) {
+        return createQuery(values).getResultList();
+    }
+
+    @Override
+    public R getSingleResult(Object... values) {
+        return createQuery(values).getSingleResult();
+    }
+
+    @Override
+    public int getParameterCount() {
+        return parameters.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void bind(TypedQuery<R> result, ParameterExpression<T> parameter, Object value) {
+        result.setParameter(parameter, (T) value);
+    }
+
+}
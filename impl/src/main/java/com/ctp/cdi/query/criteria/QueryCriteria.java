@@ -15,6 +15,7 @@ import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.CollectionAttribute;
 import javax.persistence.metamodel.ListAttribute;
 import javax.persistence.metamodel.MapAttribute;
@@ -26,6 +27,7 @@ import org.jboss.solder.logging.Logger;
 
 import com.ctp.cdi.query.builder.OrderDirection;
 import com.ctp.cdi.query.criteria.predicate.Between;
+import com.ctp.cdi.query.criteria.predicate.CriteriaParameters;
 import com.ctp.cdi.query.criteria.predicate.Eq;
 import com.ctp.cdi.query.criteria.predicate.FetchBuilder;
 import com.ctp.cdi.query.criteria.predicate.GreaterThan;
@@ -88,22 +90,48 @@ public class QueryCriteria<C, R> implements Criteria<C, R> {
     
     @Override
     public TypedQuery<R> createQuery() {
+        try {
+            return entityManager.createQuery(buildQuery(CriteriaParameters.literals()));
+        } catch (RuntimeException e) {
+            log.error("Exception while creating JPA query", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompiledCriteria<R> compile() {
+        try {
+            CriteriaParameters parameters = CriteriaParameters.parameterized();
+            CriteriaQuery<R> query = buildQuery(parameters);
+            return new CompiledQueryCriteria<R>(entityManager, query, parameters.getParameters(),
+                    parameters.getValues());
+        } catch (RuntimeException e) {
+            log.error("Exception while compiling JPA query", e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Long count() {
+        return count(distinct);
+    }
+
+    @Override
+    public Long countDistinct() {
+        return count(true);
+    }
+
+    @Override
+    public boolean exists() {
         try {
             CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<R> query = builder.createQuery(resultClass);
+            CriteriaQuery<Object> query = builder.createQuery(Object.class);
             From<C, C> root = query.from(entityClass);
-            if (!selections.isEmpty()) {
-                query.multiselect(prepareSelections(query, builder, root));
-            }
-            List<Predicate> predicates = predicates(builder, root);
-            query.distinct(distinct);
-            if (!predicates.isEmpty()) {
-                query.where(predicates.toArray(new Predicate[predicates.size()]));
-            }
-            applyProcessors(query, builder, root);
-            return entityManager.createQuery(query);
+            query.select(idSelection(root));
+            restrict(query, builder, root);
+            return !entityManager.createQuery(query).setMaxResults(1).getResultList().isEmpty();
         } catch (RuntimeException e) {
-            log.error("Exception while creating JPA query", e);
+            log.error("Exception while creating JPA exists query", e);
             throw e;
         }
     }
@@ -215,9 +243,16 @@ public class QueryCriteria<C, R> implements Criteria<C, R> {
     
     @Override
     public List<Predicate> predicates(CriteriaBuilder builder, Path<C> path) {
+        return predicates(builder, path, CriteriaParameters.literals());
+    }
+
+    public List<Predicate> predicates(CriteriaBuilder builder, Path<C> path, CriteriaParameters parameters) {
         List<Predicate> predicates = new LinkedList<Predicate>();
         for (PredicateBuilder<C> pbuilder : builders) {
-            List<Predicate> p = pbuilder.build(builder, path);
+            if (!parameters.isFetching() && pbuilder instanceof FetchBuilder) {
+                continue;
+            }
+            List<Predicate> p = pbuilder.build(builder, path, parameters);
             predicates.addAll(p);
         }
         return predicates;
@@ -245,6 +280,60 @@ public class QueryCriteria<C, R> implements Criteria<C, R> {
     // Private criteria methods
     // --------------------------------------------------------------------
     
+    private CriteriaQuery<R> buildQuery(CriteriaParameters parameters) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = builder.createQuery(resultClass);
+        From<C, C> root = query.from(entityClass);
+        if (!selections.isEmpty()) {
+            query.multiselect(prepareSelections(query, builder, root));
+        }
+        List<Predicate> predicates = predicates(builder, root, parameters);
+        query.distinct(distinct);
+        if (!predicates.isEmpty()) {
+            query.where(predicates.toArray(new Predicate[predicates.size()]));
+        }
+        applyProcessors(query, builder, root);
+        return query;
+    }
+
+    private Long count(boolean distinctEntities) {
+        try {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            From<C, C> root = query.from(entityClass);
+            query.select(distinctEntities ? builder.countDistinct(root) : builder.count(root));
+            restrict(query, builder, root);
+            return entityManager.createQuery(query).getSingleResult();
+        } catch (RuntimeException e) {
+            log.error("Exception while creating JPA count query", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the predicates and processors of the criteria to a query not returning
+     * entities, without fetch joins and ordering.
+     */
+    private void restrict(CriteriaQuery<?> query, CriteriaBuilder builder, From<C, C> root) {
+        List<Predicate> predicates = predicates(builder, root, CriteriaParameters.literals().withoutFetches());
+        if (!predicates.isEmpty()) {
+            query.where(predicates.toArray(new Predicate[predicates.size()]));
+        }
+        for (QueryProcessor<C> proc : processors) {
+            if (!(proc instanceof OrderBy)) {
+                proc.process(query, builder, root);
+            }
+        }
+    }
+
+    private Selection<?> idSelection(From<C, C> root) {
+        EntityType<C> type = entityManager.getMetamodel().entity(entityClass);
+        if (type.hasSingleIdAttribute()) {
+            return root.get(type.getId(type.getIdType().getJavaType()));
+        }
+        return root;
+    }
+    
     private void add(PredicateBuilder<C> pred) {
         builders.add(pred);
     }
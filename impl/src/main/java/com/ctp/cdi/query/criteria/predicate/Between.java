@@ -19,8 +19,9 @@ public class Between<E, V extends Comparable<? super V>> extends SingleValueBuil
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
-        return Arrays.asList(builder.between(path.get(att), value, upper));
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
+        return Arrays.asList(builder.between(path.get(att), value(builder, parameters),
+                parameters.expression(builder, att.getJavaType(), upper)));
     }
 
 }
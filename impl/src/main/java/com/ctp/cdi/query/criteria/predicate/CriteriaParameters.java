@@ -0,0 +1,103 @@
+package com.ctp.cdi.query.criteria.predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+
+import com.ctp.cdi.query.criteria.Criteria;
+import com.ctp.cdi.query.criteria.QueryCriteria;
+
+/**
+ * Turns the values of predicates into expressions. Either the values are used as
+ * literals, or each value gets a parameter, collected in the order the predicates
+ * are built, so the query can be executed again with other values.
+ * Also decides whether fetch joins are built, which count and exists queries must
+ * not contain.
+ */
+public final class CriteriaParameters {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private final boolean parameterized;
+    private final List<ParameterExpression<?>> parameters = new ArrayList<ParameterExpression<?>>();
+    private final List<Object> values = new ArrayList<Object>();
+    private boolean fetching = true;
+
+    private CriteriaParameters(boolean parameterized) {
+        this.parameterized = parameterized;
+    }
+
+    public static CriteriaParameters literals() {
+        return new CriteriaParameters(false);
+    }
+
+    public static CriteriaParameters parameterized() {
+        return new CriteriaParameters(true);
+    }
+
+    /**
+     * Skip fetch joins on the criteria and all joined or nested criteria.
+     */
+    public CriteriaParameters withoutFetches() {
+        fetching = false;
+        return this;
+    }
+
+    public boolean isFetching() {
+        return fetching;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> Expression<V> expression(CriteriaBuilder builder, Class<V> type, V value) {
+        Class<V> javaType = WRAPPERS.containsKey(type) ? (Class<V>) WRAPPERS.get(type) : type;
+        if (!parameterized) {
+            return value == null ? builder.nullLiteral(javaType) : builder.literal(value);
+        }
+        ParameterExpression<V> parameter = builder.parameter(javaType);
+        parameters.add(parameter);
+        values.add(value);
+        return parameter;
+    }
+
+    /**
+     * Predicates of a joined or nested criteria, with values turned into expressions
+     * by this instance.
+     */
+    public <P> List<Predicate> predicates(Criteria<P, ?> criteria, CriteriaBuilder builder, Path<P> path) {
+        if (criteria instanceof QueryCriteria) {
+            return ((QueryCriteria<P, ?>) criteria).predicates(builder, path, this);
+        }
+        return criteria.predicates(builder, path);
+    }
+
+    public List<ParameterExpression<?>> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * @return  The values the parameters were created for, in parameter order.
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+}
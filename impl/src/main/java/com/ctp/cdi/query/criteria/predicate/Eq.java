@@ -16,8 +16,8 @@ public class Eq<E, V> extends SingleValueBuilder<E, V> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
-        return Arrays.asList(builder.equal(path.get(att), value));
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
+        return Arrays.asList(builder.equal(path.get(att), value(builder, parameters)));
     }
 
 }
@@ -30,7 +30,7 @@ public class FetchBuilder<P, R, E> implements PredicateBuilder<P> {
 
     @SuppressWarnings("rawtypes")
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<P> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<P> path, CriteriaParameters parameters) {
         if (singular != null) {
             fetchSingular((From) path);
         } else if (plural != null) {
@@ -16,8 +16,8 @@ public class GreaterThanOrEqual<E, V extends Comparable<? super V>> extends Sing
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
-        return Arrays.asList(builder.greaterThanOrEqualTo(path.get(att), value));
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
+        return Arrays.asList(builder.greaterThanOrEqualTo(path.get(att), value(builder, parameters)));
     }
 
 }
@@ -19,12 +19,12 @@ public class In<P, V> implements PredicateBuilder<P> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<P> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<P> path, CriteriaParameters parameters) {
         Path<V> p = path.get(singular);
         CriteriaBuilder.In<V> in = builder.in(p);
         for (V value : values) {
             if (value != null) {
-                in.value(value);
+                in.value(parameters.expression(builder, singular.getJavaType(), value));
             }
         }
         return Arrays.asList((Predicate) in);
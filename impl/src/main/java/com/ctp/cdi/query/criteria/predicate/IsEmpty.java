@@ -16,7 +16,7 @@ public class IsEmpty<E, V extends Collection<?>> extends NoValueBuilder<E, V> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
         return Arrays.asList(builder.isEmpty(path.get(att)));
     }
 
@@ -15,7 +15,7 @@ public class IsNull<E, V> extends NoValueBuilder<E, V> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
         return Arrays.asList(builder.isNull(path.get(att)));
     }
 
@@ -59,7 +59,7 @@ public class JoinBuilder<P, R, E> implements PredicateBuilder<P> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<P> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<P> path, CriteriaParameters parameters) {
         Join join = null;
         if (singular != null) {
             join = joinSingular((From) path);
@@ -72,7 +72,7 @@ public class JoinBuilder<P, R, E> implements PredicateBuilder<P> {
         } else {
             join = joinMap((From) path);
         }
-        return criteria.predicates(builder, join);
+        return parameters.predicates(criteria, builder, join);
     }
 
     private Join joinSingular(From path) {
@@ -16,8 +16,8 @@ public class LessThanOrEqual<E, V extends Comparable<? super V>> extends SingleV
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
-        return Arrays.asList(builder.lessThanOrEqualTo(path.get(att), value));
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
+        return Arrays.asList(builder.lessThanOrEqualTo(path.get(att), value(builder, parameters)));
     }
 
 }
\ No newline at end of file
@@ -16,8 +16,8 @@ public class NotLike<E> extends SingleValueBuilder<E, String> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<E> path) {
-        return Arrays.asList(builder.notLike(path.get(att), value));
+    public List<Predicate> build(CriteriaBuilder builder, Path<E> path, CriteriaParameters parameters) {
+        return Arrays.asList(builder.notLike(path.get(att), value(builder, parameters)));
     }
 
 }
@@ -19,11 +19,11 @@ public class OrBuilder<P> implements PredicateBuilder<P> {
     }
 
     @Override
-    public List<Predicate> build(CriteriaBuilder builder, Path<P> path) {
+    public List<Predicate> build(CriteriaBuilder builder, Path<P> path, CriteriaParameters parameters) {
         List<Predicate> and = new ArrayList<Predicate>(criteria.length);
         for (Criteria<P, P> c : criteria) {
             and.add(builder.and(
-                    c.predicates(builder, path).toArray(new Predicate[0])));
+                    parameters.predicates(c, builder, path).toArray(new Predicate[0])));
         }
         return Arrays.asList(builder.or(and.toArray(new Predicate[0])));
     }
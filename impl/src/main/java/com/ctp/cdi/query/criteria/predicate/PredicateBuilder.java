@@ -8,6 +8,6 @@ import javax.persistence.criteria.Predicate;
 
 public interface PredicateBuilder<P> {
 
-    List<Predicate> build(CriteriaBuilder builder, Path<P> path);
+    List<Predicate> build(CriteriaBuilder builder, Path<P> path, CriteriaParameters parameters);
 
 }
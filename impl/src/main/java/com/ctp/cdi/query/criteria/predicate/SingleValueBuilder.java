@@ -1,5 +1,7 @@
 package com.ctp.cdi.query.criteria.predicate;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.metamodel.SingularAttribute;
 
 
@@ -12,4 +14,8 @@ abstract class SingleValueBuilder<E, V> extends NoValueBuilder<E, V> {
         this.value = value;
     }
 
+    Expression<V> value(CriteriaBuilder builder, CriteriaParameters parameters) {
+        return parameters.expression(builder, att.getJavaType(), value);
+    }
+
 }
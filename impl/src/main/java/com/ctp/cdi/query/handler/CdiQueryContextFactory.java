@@ -1,17 +1,42 @@
 package com.ctp.cdi.query.handler;
 
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Produces;
 
-@RequestScoped
+/**
+ * Provides the context of the DAO invocation running on the current thread.
+ * Bound to the thread instead of the request, so DAOs can also be called
+ * from worker threads without an active request context.
+ */
+@ApplicationScoped
 public class CdiQueryContextFactory {
 
+    private static final ThreadLocal<CdiQueryInvocationContext> CURRENT = new ThreadLocal<CdiQueryInvocationContext>();
+
     @Produces
-    private CdiQueryInvocationContext context;
+    public CdiQueryInvocationContext currentContext() {
+        return CURRENT.get();
+    }
 
     public void contextCreated(@Observes CdiQueryInvocationContext context) {
-        this.context = context;
+        CURRENT.set(context);
+    }
+
+    static CdiQueryInvocationContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Reinstates the context of an enclosing invocation, or unbinds the thread
+     * when the outermost invocation is done.
+     */
+    static void restore(CdiQueryInvocationContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
     }
 
 }
@@ -11,6 +11,7 @@ import javax.persistence.Query;
 import com.ctp.cdi.query.meta.DaoMethod;
 import com.ctp.cdi.query.param.Parameters;
 import com.ctp.cdi.query.spi.QueryInvocationContext;
+import com.ctp.cdi.query.spi.QueryResultCache;
 
 public class CdiQueryInvocationContext implements QueryInvocationContext {
 
@@ -21,17 +22,23 @@ public class CdiQueryInvocationContext implements QueryInvocationContext {
     private final DaoMethod daoMethod;
     private final List<QueryStringPostProcessor> queryPostProcessors;
     private final List<JpaQueryPostProcessor> jpaPostProcessors;
+    private final QueryResultCache resultCache;
     
     private String queryString;
     
-    public CdiQueryInvocationContext(InvocationContext invocation, DaoMethod daoMethod, EntityManager entityManager) {
+    public CdiQueryInvocationContext(InvocationContext invocation, DaoMethod daoMethod, EntityManager entityManager,
+            QueryResultCache resultCache) {
         this.entityManager = entityManager;
-        this.params = Parameters.create(invocation.getMethod(), invocation.getParameters());
+        this.resultCache = resultCache;
+        this.params = Parameters.create(daoMethod.getParameterBinding(), invocation.getParameters());
         this.invocation = invocation;
         this.daoMethod = daoMethod;
         this.entityClass = daoMethod.getDao().getEntityClass();
         this.queryPostProcessors = new LinkedList<QueryStringPostProcessor>();
         this.jpaPostProcessors = new LinkedList<JpaQueryPostProcessor>();
+        if (daoMethod.hasFetchJoins()) {
+            queryPostProcessors.add(daoMethod.getFetchJoins());
+        }
     }
     
     @Override
@@ -66,6 +73,10 @@ public class CdiQueryInvocationContext implements QueryInvocationContext {
         queryPostProcessors.add(postProcessor);
     }
     
+    public void removeQueryStringPostProcessor(QueryStringPostProcessor postProcessor) {
+        queryPostProcessors.remove(postProcessor);
+    }
+    
     public void addJpaQueryPostProcessor(JpaQueryPostProcessor postProcessor) {
         jpaPostProcessors.add(postProcessor);
     }
@@ -95,13 +106,17 @@ public class CdiQueryInvocationContext implements QueryInvocationContext {
     }
     
     public Object executeQuery(Query jpaQuery) {
-        return daoMethod.getQueryProcessor().executeQuery(jpaQuery);
+        return daoMethod.getQueryProcessor().executeQuery(jpaQuery, this);
     }
 
     public Parameters getParams() {
         return params;
     }
 
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
     public InvocationContext getInvocation() {
         return invocation;
     }
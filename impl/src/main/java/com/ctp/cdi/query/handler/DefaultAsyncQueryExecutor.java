@@ -0,0 +1,53 @@
+package com.ctp.cdi.query.handler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import com.ctp.cdi.query.spi.AsyncQueryExecutor;
+
+/**
+ * Runs asynchronous queries on a fixed pool of daemon threads. Queries mostly
+ * wait on the database, so the pool is sized at twice the number of processors.
+ */
+@ApplicationScoped
+public class DefaultAsyncQueryExecutor implements AsyncQueryExecutor {
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        executor = Executors.newFixedThreadPool(threads, new QueryThreadFactory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> query) {
+        return executor.submit(query);
+    }
+
+    private static final class QueryThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cdi-query-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.ctp.cdi.query.handler;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.InjectionTarget;
+import javax.inject.Inject;
+
+import com.ctp.cdi.query.spi.DaoInvoker;
+
+/**
+ * Dispatches calls of a generated DAO implementation to a {@link QueryHandler},
+ * created the same way as for DAO proxies. One invoker is injected per DAO instance.
+ */
+public class DefaultDaoInvoker implements DaoInvoker, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient BeanManager beanManager;
+
+    private transient InjectionTarget<QueryHandler> target;
+    private transient CreationalContext<QueryHandler> context;
+    private QueryHandler handler;
+
+    @PostConstruct
+    void init() {
+        target = beanManager.createInjectionTarget(beanManager.createAnnotatedType(QueryHandler.class));
+        context = beanManager.createCreationalContext(null);
+        handler = target.produce(context);
+        target.inject(handler, context);
+        target.postConstruct(handler);
+    }
+
+    /**
+     * Releases the dependent objects injected into the handler along with the DAO.
+     */
+    @PreDestroy
+    void destroy() {
+        if (target != null) {
+            target.preDestroy(handler);
+            target.dispose(handler);
+            context.release();
+        }
+    }
+
+    @Override
+    public Object invoke(Object dao, Method method, Object[] parameters) {
+        return handler.handle(new DirectInvocation(dao, method, parameters));
+    }
+
+}
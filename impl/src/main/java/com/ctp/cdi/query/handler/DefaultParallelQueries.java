@@ -0,0 +1,139 @@
+package com.ctp.cdi.query.handler;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import com.ctp.cdi.query.ParallelQueries;
+import com.ctp.cdi.query.meta.DaoComponent;
+import com.ctp.cdi.query.meta.DaoComponents;
+import com.ctp.cdi.query.meta.Initialized;
+import com.ctp.cdi.query.spi.AsyncQueryExecutor;
+
+/**
+ * Runs each query in a {@link ReadOnlyQueryScope} on the pool of the
+ * {@link AsyncQueryExecutor}. The entity manager factories of all DAOs are
+ * resolved on the first calling thread, as the contextual entity managers
+ * might not be usable on the pool. Parallel queries started from within a
+ * parallel query run inline, so pool threads never wait for each other.
+ */
+@ApplicationScoped
+public class DefaultParallelQueries implements ParallelQueries {
+
+    @Inject
+    private AsyncQueryExecutor executor;
+
+    @Inject @Any
+    private Instance<EntityManager> entityManager;
+
+    @Inject @Initialized
+    private DaoComponents components;
+
+    private volatile Map<List<Annotation>, EntityManagerFactory> factories;
+
+    @Override
+    public List<Object> execute(long timeout, TimeUnit unit, Callable<?>... queries)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        return execute(timeout, unit, Arrays.asList(queries));
+    }
+
+    @Override
+    public List<Object> execute(long timeout, TimeUnit unit, List<? extends Callable<?>> queries)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        if (ReadOnlyQueryScope.current() != null) {
+            return executeInline(queries);
+        }
+        Map<List<Annotation>, EntityManagerFactory> resolved = resolveFactories();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(queries.size());
+        try {
+            for (Callable<?> query : queries) {
+                futures.add(executor.submit(new ReadOnlyQuery(query, resolved)));
+            }
+            List<Object> results = new ArrayList<Object>(futures.size());
+            for (Future<Object> future : futures) {
+                results.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } finally {
+            for (Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private List<Object> executeInline(List<? extends Callable<?>> queries) throws ExecutionException {
+        List<Object> results = new ArrayList<Object>(queries.size());
+        for (Callable<?> query : queries) {
+            try {
+                results.add(query.call());
+            } catch (Exception e) {
+                throw new ExecutionException(e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * DAOs and their entity managers are known after deployment, so the factories
+     * are resolved once. Qualifiers without an entity manager are left out, the
+     * scope rejects queries of such DAOs.
+     */
+    private Map<List<Annotation>, EntityManagerFactory> resolveFactories() {
+        Map<List<Annotation>, EntityManagerFactory> result = factories;
+        if (result != null) {
+            return result;
+        }
+        result = new HashMap<List<Annotation>, EntityManagerFactory>();
+        for (DaoComponent dao : components.getComponents()) {
+            Annotation[] qualifiers = dao.resolveEntityManagerQualifiers();
+            List<Annotation> key = Arrays.asList(qualifiers);
+            if (result.containsKey(key)) {
+                continue;
+            }
+            Instance<EntityManager> selected = qualifiers.length > 0 ? entityManager.select(qualifiers) : entityManager;
+            if (!selected.isUnsatisfied() && !selected.isAmbiguous()) {
+                result.put(key, selected.get().getEntityManagerFactory());
+            }
+        }
+        factories = result;
+        return result;
+    }
+
+    private static final class ReadOnlyQuery implements Callable<Object> {
+
+        private final Callable<?> query;
+        private final Map<List<Annotation>, EntityManagerFactory> factories;
+
+        private ReadOnlyQuery(Callable<?> query, Map<List<Annotation>, EntityManagerFactory> factories) {
+            this.query = query;
+            this.factories = factories;
+        }
+
+        @Override
+        public Object call() throws Exception {
+            ReadOnlyQueryScope scope = ReadOnlyQueryScope.open(factories);
+            try {
+                return query.call();
+            } finally {
+                scope.close();
+            }
+        }
+    }
+
+}
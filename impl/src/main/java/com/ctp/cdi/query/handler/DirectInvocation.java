@@ -0,0 +1,60 @@
+package com.ctp.cdi.query.handler;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.interceptor.InvocationContext;
+
+/**
+ * Invocation of an abstract method on a generated DAO implementation. There is
+ * no target method to proceed to.
+ */
+final class DirectInvocation implements InvocationContext {
+
+    private final Object target;
+    private final Method method;
+    private final Map<String, Object> contextData = new HashMap<String, Object>();
+    private Object[] parameters;
+
+    DirectInvocation(Object target, Method method, Object[] parameters) {
+        this.target = target;
+        this.method = method;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public Object getTarget() {
+        return target;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public void setParameters(Object[] parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public Map<String, Object> getContextData() {
+        return contextData;
+    }
+
+    public Object getTimer() {
+        return null;
+    }
+
+    @Override
+    public Object proceed() throws Exception {
+        throw new AbstractMethodError("No implementation for DAO method " + method);
+    }
+
+}
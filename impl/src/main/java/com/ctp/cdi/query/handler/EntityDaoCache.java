@@ -0,0 +1,71 @@
+package com.ctp.cdi.query.handler;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManagerFactory;
+
+import com.ctp.cdi.query.builder.result.Projection;
+import com.ctp.cdi.query.util.LruCache;
+
+/**
+ * Queries and projections the {@link EntityDaoHandler} resolved for entity classes.
+ * Update queries are keyed by their example and their updated attributes.
+ * Primary key queries are kept per entity manager factory, as their size depends on
+ * the database.
+ * They hold properties and fields of application classes, so they are kept with
+ * the application and dropped on redeployment.
+ */
+@ApplicationScoped
+public class EntityDaoCache {
+
+    private static final int EXAMPLE_QUERY_CACHE_SIZE = 512;
+    private static final int UPDATE_QUERY_CACHE_SIZE = 256;
+    private static final int PROJECTION_CACHE_SIZE = 256;
+    private static final int PRIMARY_KEY_QUERY_CACHE_SIZE = 256;
+
+    private final LruCache<ExampleQuery.Key, ExampleQuery> exampleQueries =
+            new LruCache<ExampleQuery.Key, ExampleQuery>(EXAMPLE_QUERY_CACHE_SIZE);
+    private final LruCache<List<ExampleQuery.Key>, UpdateQuery> updateQueries =
+            new LruCache<List<ExampleQuery.Key>, UpdateQuery>(UPDATE_QUERY_CACHE_SIZE);
+    private final LruCache<List<Class<?>>, Projection> projections =
+            new LruCache<List<Class<?>>, Projection>(PROJECTION_CACHE_SIZE);
+    private final LruCache<List<Object>, PrimaryKeyQuery> primaryKeyQueries =
+            new LruCache<List<Object>, PrimaryKeyQuery>(PRIMARY_KEY_QUERY_CACHE_SIZE);
+
+    ExampleQuery getExampleQuery(ExampleQuery.Key key) {
+        return exampleQueries.get(key);
+    }
+
+    void putExampleQuery(ExampleQuery.Key key, ExampleQuery query) {
+        exampleQueries.put(key, query);
+    }
+
+    UpdateQuery getUpdateQuery(ExampleQuery.Key example, ExampleQuery.Key updated) {
+        return updateQueries.get(Arrays.asList(example, updated));
+    }
+
+    void putUpdateQuery(ExampleQuery.Key example, ExampleQuery.Key updated, UpdateQuery query) {
+        updateQueries.put(Arrays.asList(example, updated), query);
+    }
+
+    Projection getProjection(Class<?> type, Class<?> entityClass) {
+        List<Class<?>> key = Arrays.<Class<?>>asList(type, entityClass);
+        Projection result = projections.get(key);
+        if (result == null) {
+            result = Projection.of(type, entityClass);
+            projections.put(key, result);
+        }
+        return result;
+    }
+
+    PrimaryKeyQuery getPrimaryKeyQuery(EntityManagerFactory factory, Class<?> entityClass) {
+        return primaryKeyQueries.get(Arrays.<Object>asList(factory, entityClass));
+    }
+
+    void putPrimaryKeyQuery(EntityManagerFactory factory, Class<?> entityClass, PrimaryKeyQuery query) {
+        primaryKeyQueries.put(Arrays.<Object>asList(factory, entityClass), query);
+    }
+
+}
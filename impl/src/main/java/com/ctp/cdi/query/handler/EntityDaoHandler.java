@@ -1,18 +1,28 @@
 package com.ctp.cdi.query.handler;
 
-import static com.ctp.cdi.query.util.EntityUtils.entityName;
 import static com.ctp.cdi.query.util.QueryUtils.isEmpty;
 import static com.ctp.cdi.query.util.QueryUtils.isString;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EmbeddableType;
+import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.SingularAttribute;
 
 import org.jboss.solder.logging.Logger;
@@ -23,8 +33,12 @@ import org.jboss.solder.properties.query.PropertyQueries;
 import com.ctp.cdi.query.AbstractEntityDao;
 import com.ctp.cdi.query.EntityDao;
 import com.ctp.cdi.query.builder.QueryBuilder;
+import com.ctp.cdi.query.builder.result.Projection;
+import com.ctp.cdi.query.meta.DaoComponent;
 import com.ctp.cdi.query.spi.DelegateQueryHandler;
-import com.ctp.cdi.query.spi.QueryInvocationContext;
+import com.ctp.cdi.query.spi.QueryResultCache;
+import com.ctp.cdi.query.util.EntityUtils;
+import com.ctp.cdi.query.util.jpa.QueryParameterLimits;
 
 /**
  * Implement basic functionality from the {@link EntityDao}.
@@ -37,18 +51,26 @@ import com.ctp.cdi.query.spi.QueryInvocationContext;
 public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntityDao<E, PK>
         implements DelegateQueryHandler {
 
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final String ECLIPSELINK_BATCH_WRITING = "eclipselink.jdbc.batch-writing";
+    private static final String ECLIPSELINK_BATCH_SIZE = "eclipselink.jdbc.batch-writing.size";
+    private static final String ECLIPSELINK_NO_BATCH_WRITING = "None";
+
+    private static final String UPDATE_PARAM_PREFIX = "value_";
+
     private final Logger log = Logger.getLogger(EntityDaoHandler.class);
     
     @Inject
-    private QueryInvocationContext context;
+    private CdiQueryInvocationContext context;
+
+    @Inject
+    private EntityDaoCache cache;
 
     @Override
     public E save(E entity) {
-        if (context.isNew(entity)) {
-            entityManager().persist(entity);
-            return entity;
-        }
-        return entityManager().merge(entity);
+        E result = store(entity);
+        invalidateResults();
+        return result;
     }
 
     @Override
@@ -58,6 +80,42 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
         return result;
     }
 
+    @Override
+    public void saveAll(Iterable<E> entities) {
+        saveAll(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public void saveAll(Iterable<E> entities, int batchSize) {
+        Map<String, Object> previous = enableBatchWriting(batchSize);
+        try {
+            int count = 0;
+            for (E entity : entities) {
+                store(entity);
+                if (batchSize > 0 && ++count % batchSize == 0) {
+                    flushAndClear();
+                }
+            }
+            if (batchSize > 0 && count % batchSize != 0) {
+                flushAndClear();
+            }
+        } finally {
+            restoreBatchWriting(previous);
+        }
+        invalidateResults();
+    }
+
+    @Override
+    public List<E> saveAndFlushAll(Iterable<E> entities) {
+        List<E> result = new ArrayList<E>();
+        for (E entity : entities) {
+            result.add(store(entity));
+        }
+        entityManager().flush();
+        invalidateResults();
+        return result;
+    }
+
     @Override
     public void refresh(E entity) {
         entityManager().refresh(entity);
@@ -68,6 +126,23 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
         return entityManager().find(entityClass(), primaryKey);
     }
 
+    @Override
+    public List<E> findAllById(Collection<PK> primaryKeys) {
+        List<E> result = new ArrayList<E>(primaryKeys.size());
+        if (primaryKeys.isEmpty()) {
+            return result;
+        }
+        PrimaryKeyQuery keyQuery = lookupPrimaryKeyQuery();
+        Map<List<Object>, E> found = findByKeys(keyQuery, distinctKeys(primaryKeys));
+        for (PK primaryKey : primaryKeys) {
+            E entity = primaryKey != null ? found.get(keyQuery.key(primaryKey)) : null;
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
     @Override
     public List<E> findBy(E example, SingularAttribute<E, ?>... attributes) {
         return findBy(example, -1, -1, attributes);
@@ -88,6 +163,21 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
         return executeExampleQuery(example,start,max,true,attributes);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> findBy(E example, Class<T> projection, SingularAttribute<E, ?>... attributes) {
+        Projection mapping = cache.getProjection(projection, entityClass());
+        String selectQuery = QueryBuilder.selectQuery(mapping.getSelection(QueryBuilder.ENTITY_NAME),
+                daoComponent().getEntityName());
+        if (isEmpty(attributes)) {
+            return (List<T>) mapping.mapAll(entityManager().createQuery(selectQuery).getResultList());
+        }
+        ExampleQuery exampleQuery = lookupExampleQuery(false, attributes);
+        Query query = entityManager().createQuery(exampleQuery(selectQuery, exampleQuery.getWhere()));
+        addParameters(query, example, exampleQuery.getProperties(), false);
+        return (List<T>) mapping.mapAll(query.getResultList());
+    }
+
     @Override
     public List<E> findAll() {
         return entityManager().createQuery(allQuery(), entityClass()).getResultList();
@@ -123,6 +213,71 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
     @Override
     public void remove(E entity) {
         entityManager().remove(entity);
+        invalidateResults();
+    }
+
+    @Override
+    public void removeAll(Iterable<E> entities) {
+        removeAll(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public void removeAll(Iterable<E> entities, int batchSize) {
+        Map<String, Object> previous = enableBatchWriting(batchSize);
+        try {
+            int count = 0;
+            for (E entity : entities) {
+                entityManager().remove(managed(entity));
+                if (batchSize > 0 && ++count % batchSize == 0) {
+                    flushAndClear();
+                }
+            }
+            if (batchSize > 0 && count % batchSize != 0) {
+                flushAndClear();
+            }
+        } finally {
+            restoreBatchWriting(previous);
+        }
+        invalidateResults();
+    }
+
+    @Override
+    public int removeBy(E example, SingularAttribute<E, ?>... attributes) {
+        if (isEmpty(attributes)) {
+            throw new IllegalArgumentException("removeBy requires at least one example attribute");
+        }
+        ExampleQuery exampleQuery = lookupExampleQuery(false, attributes);
+        Query query = entityManager().createQuery(exampleQuery.getDeleteQuery());
+        addParameters(query, example, exampleQuery.getProperties(), false);
+        return executeUpdate(query);
+    }
+
+    @Override
+    public <V> int updateBy(SingularAttribute<E, V> attribute, V value, E example,
+            SingularAttribute<E, ?>... attributes) {
+        if (isEmpty(attributes)) {
+            throw new IllegalArgumentException("updateBy requires at least one example attribute");
+        }
+        UpdateQuery updateQuery = lookupUpdateQuery(new String[] { attribute.getName() }, attributes);
+        Query query = entityManager().createQuery(updateQuery.getQuery());
+        query.setParameter(UPDATE_PARAM_PREFIX + attribute.getName(), value);
+        addParameters(query, example, updateQuery.getExampleQuery().getProperties(), false);
+        return executeUpdate(query);
+    }
+
+    @Override
+    public int updateBy(E values, SingularAttribute<E, ?>[] updated, E example,
+            SingularAttribute<E, ?>... attributes) {
+        if (isEmpty(updated) || isEmpty(attributes)) {
+            throw new IllegalArgumentException("updateBy requires at least one updated and one example attribute");
+        }
+        UpdateQuery updateQuery = lookupUpdateQuery(extractPropertyNames(updated), attributes);
+        Query query = entityManager().createQuery(updateQuery.getQuery());
+        for (Property<Object> property : updateQuery.getProperties()) {
+            query.setParameter(UPDATE_PARAM_PREFIX + property.getName(), property.getValue(values));
+        }
+        addParameters(query, example, updateQuery.getExampleQuery().getProperties(), false);
+        return executeUpdate(query);
     }
 
     @Override
@@ -150,23 +305,199 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
     // PRIVATE
     // ----------------------------------------------------------------------------
 
+    private DaoComponent daoComponent() {
+        return context.getDaoMethod().getDao();
+    }
+
     private String allQuery() {
-        return QueryBuilder.selectQuery(entityName(entityClass()));
+        return daoComponent().getSelectQuery();
     }
 
     private String countQuery() {
-        return QueryBuilder.countQuery(entityName(entityClass()));
+        return daoComponent().getCountQuery();
     }
 
-    private String exampleQuery(String queryBase, List<Property<Object>> properties, boolean useLikeOperator) {
-        StringBuilder jpqlQuery = new StringBuilder(queryBase).append(" where ");
-        jpqlQuery.append(prepareWhere(properties, useLikeOperator));
-        return jpqlQuery.toString();
+    private void flushAndClear() {
+        entityManager().flush();
+        entityManager().clear();
     }
 
-    private void addParameters(TypedQuery<?> query, E example, List<Property<Object>> properties, boolean useLikeOperator) {
-        for (Property<Object> property : properties) {
+    private E store(E entity) {
+        if (context.isNew(entity)) {
+            entityManager().persist(entity);
+            return entity;
+        }
+        return entityManager().merge(entity);
+    }
+
+    private int executeUpdate(Query query) {
+        int result = query.executeUpdate();
+        invalidateResults();
+        return result;
+    }
+
+    private void invalidateResults() {
+        QueryResultCache cache = context.getResultCache();
+        if (cache != null) {
+            cache.invalidate(entityClass());
+        }
+    }
+
+    /**
+     * JDBC batching is a persistence unit setting for most providers. EclipseLink also
+     * accepts it on the entity manager, which other providers ignore. The entity manager
+     * is usually shared, so the settings only apply to the flushes of the batch operation
+     * and are restored with {@link #restoreBatchWriting(Map)} afterwards.
+     *
+     * @return          The previous settings, or {@code null} if batching was not enabled.
+     */
+    private Map<String, Object> enableBatchWriting(int batchSize) {
+        if (batchSize <= 1) {
+            return null;
+        }
+        try {
+            Map<String, Object> properties = entityManager().getProperties();
+            Map<String, Object> previous = new HashMap<String, Object>();
+            previous.put(ECLIPSELINK_BATCH_WRITING, properties.get(ECLIPSELINK_BATCH_WRITING));
+            previous.put(ECLIPSELINK_BATCH_SIZE, properties.get(ECLIPSELINK_BATCH_SIZE));
+            entityManager().setProperty(ECLIPSELINK_BATCH_WRITING, "JDBC");
+            entityManager().setProperty(ECLIPSELINK_BATCH_SIZE, String.valueOf(batchSize));
+            return previous;
+        } catch (RuntimeException e) {
+            log.debugv("enableBatchWriting: Batch writing properties not supported: {0}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Properties cannot be removed from an entity manager, so batch writing is switched
+     * off if it was not set before. The batch size only applies with batch writing.
+     */
+    private void restoreBatchWriting(Map<String, Object> previous) {
+        if (previous == null) {
+            return;
+        }
+        try {
+            Object writing = previous.get(ECLIPSELINK_BATCH_WRITING);
+            entityManager().setProperty(ECLIPSELINK_BATCH_WRITING,
+                    writing != null ? writing : ECLIPSELINK_NO_BATCH_WRITING);
+            if (previous.get(ECLIPSELINK_BATCH_SIZE) != null) {
+                entityManager().setProperty(ECLIPSELINK_BATCH_SIZE, previous.get(ECLIPSELINK_BATCH_SIZE));
+            }
+        } catch (RuntimeException e) {
+            log.debugv("restoreBatchWriting: Failed to restore batch writing properties: {0}", e.getMessage());
+        }
+    }
+
+    private E managed(E entity) {
+        if (entityManager().contains(entity)) {
+            return entity;
+        }
+        Object id = entityManager().getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        return entityManager().getReference(entityClass(), id);
+    }
+
+    private List<PK> distinctKeys(Collection<PK> primaryKeys) {
+        LinkedHashSet<PK> keys = new LinkedHashSet<PK>(primaryKeys);
+        keys.remove(null);
+        return new ArrayList<PK>(keys);
+    }
+
+    private Map<List<Object>, E> findByKeys(PrimaryKeyQuery keyQuery, List<PK> keys) {
+        Map<List<Object>, E> result = new HashMap<List<Object>, E>();
+        PersistenceUnitUtil util = entityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        for (int start = 0; start < keys.size(); start += keyQuery.getChunkSize()) {
+            List<PK> chunk = keys.subList(start, Math.min(start + keyQuery.getChunkSize(), keys.size()));
+            TypedQuery<E> query = entityManager().createQuery(keyQuery.getQuery(chunk.size()), entityClass());
+            keyQuery.bind(query, chunk);
+            for (E entity : query.getResultList()) {
+                result.put(keyQuery.entityKey(entity, util), entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The chunk size depends on the database of the persistence unit, so the same entity
+     * class might need different queries per entity manager factory.
+     */
+    private PrimaryKeyQuery lookupPrimaryKeyQuery() {
+        EntityManagerFactory factory = entityManager().getEntityManagerFactory();
+        PrimaryKeyQuery result = cache.getPrimaryKeyQuery(factory, entityClass());
+        if (result == null) {
+            result = createPrimaryKeyQuery(factory);
+            cache.putPrimaryKeyQuery(factory, entityClass(), result);
+        }
+        return result;
+    }
+
+    private PrimaryKeyQuery createPrimaryKeyQuery(EntityManagerFactory factory) {
+        EntityType<E> type = entityManager().getMetamodel().entity(entityClass());
+        int maxParameters = QueryParameterLimits.maxParameters(factory);
+        List<Property<Object>> none = Collections.emptyList();
+        if (!type.hasSingleIdAttribute()) {
+            String[] names = attributeNames(type.getIdClassAttributes());
+            Class<?> keyClass = EntityUtils.primaryKeyClass(entityClass());
+            return new PrimaryKeyQuery(allQuery(), attributePaths(QueryBuilder.ENTITY_NAME, names),
+                    orderedProperties(keyClass, names), orderedProperties(entityClass(), names), maxParameters);
+        }
+        SingularAttribute<? super E, ?> id = idAttribute(type);
+        String path = QueryBuilder.ENTITY_NAME + "." + id.getName();
+        if (id.getType() instanceof EmbeddableType) {
+            String[] names = attributeNames(((EmbeddableType<?>) id.getType()).getSingularAttributes());
+            Class<?> keyClass = EntityUtils.primaryKeyClass(entityClass());
+            return new PrimaryKeyQuery(allQuery(), attributePaths(path, names),
+                    orderedProperties(keyClass, names), none, maxParameters);
+        }
+        return new PrimaryKeyQuery(allQuery(), new String[] { path }, none, none, maxParameters);
+    }
+
+    private SingularAttribute<? super E, ?> idAttribute(EntityType<E> type) {
+        for (SingularAttribute<? super E, ?> attribute : type.getSingularAttributes()) {
+            if (attribute.isId()) {
+                return attribute;
+            }
+        }
+        throw new IllegalStateException("Class " + entityClass() + " has no id defined");
+    }
+
+    private String[] attributeNames(Collection<? extends Attribute<?, ?>> attributes) {
+        List<String> result = new ArrayList<String>(attributes.size());
+        for (Attribute<?, ?> attribute : attributes) {
+            result.add(attribute.getName());
+        }
+        Collections.sort(result);
+        return result.toArray(new String[result.size()]);
+    }
+
+    private String[] attributePaths(String base, String[] names) {
+        String[] result = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = base + "." + names[i];
+        }
+        return result;
+    }
+
+    private List<Property<Object>> orderedProperties(Class<?> clazz, String[] names) {
+        List<Property<Object>> result = new ArrayList<Property<Object>>(names.length);
+        for (String name : names) {
+            Property<Object> property = PropertyQueries.<Object>createQuery(clazz)
+                    .addCriteria(new NamedPropertyCriteria(name)).getFirstResult();
+            if (property == null) {
+                throw new IllegalStateException("Class " + clazz + " has no property " + name);
+            }
             property.setAccessible();
+            result.add(property);
+        }
+        return result;
+    }
+
+    private String exampleQuery(String queryBase, String where) {
+        return new StringBuilder(queryBase).append(" where ").append(where).toString();
+    }
+
+    private void addParameters(Query query, E example, List<Property<Object>> properties, boolean useLikeOperator) {
+        for (Property<Object> property : properties) {
             query.setParameter(property.getName(), transform(property.getValue(example), useLikeOperator));
         }
     }
@@ -197,20 +528,61 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
         return result.toString();
     }
 
-    private List<String> extractPropertyNames(SingularAttribute<E, ?>... attributes) {
-        List<String> result = new ArrayList<String>(attributes.length);
-        for (SingularAttribute<E, ?> attribute : attributes) {
-            result.add(attribute.getName());
+    private String[] extractPropertyNames(SingularAttribute<E, ?>... attributes) {
+        String[] result = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            result[i] = attributes[i].getName();
         }
         return result;
     }
     
-    private  List<Property<Object>> extractProperties(SingularAttribute<E, ?>... attributes) {
-        List<String> names = extractPropertyNames(attributes);
+    private List<Property<Object>> extractProperties(String[] names) {
         List<Property<Object>> properties = PropertyQueries.createQuery(entityClass())
-                .addCriteria(new NamedPropertyCriteria(names.toArray(new String[] {}))).getResultList();
+                .addCriteria(new NamedPropertyCriteria(names)).getResultList();
+        for (Property<Object> property : properties) {
+            property.setAccessible();
+        }
         return properties;
     }
+
+    private ExampleQuery lookupExampleQuery(boolean useLikeOperator, SingularAttribute<E, ?>... attributes) {
+        ExampleQuery.Key key = new ExampleQuery.Key(entityClass(), extractPropertyNames(attributes), useLikeOperator);
+        ExampleQuery result = cache.getExampleQuery(key);
+        if (result == null) {
+            List<Property<Object>> properties = extractProperties(key.getNames());
+            String where = prepareWhere(properties, useLikeOperator);
+            result = new ExampleQuery(properties, where,
+                    exampleQuery(allQuery(), where),
+                    exampleQuery(countQuery(), where),
+                    exampleQuery(QueryBuilder.deleteQuery(daoComponent().getEntityName()), where));
+            log.debugv("lookupExampleQuery: Created queries {0} and {1}",
+                    result.getSelectQuery(), result.getCountQuery());
+            cache.putExampleQuery(key, result);
+        }
+        return result;
+    }
+
+    private UpdateQuery lookupUpdateQuery(String[] updated, SingularAttribute<E, ?>... attributes) {
+        ExampleQuery.Key exampleKey = new ExampleQuery.Key(entityClass(), extractPropertyNames(attributes), false);
+        ExampleQuery.Key updatedKey = new ExampleQuery.Key(entityClass(), updated, false);
+        UpdateQuery result = cache.getUpdateQuery(exampleKey, updatedKey);
+        if (result == null) {
+            ExampleQuery exampleQuery = lookupExampleQuery(false, attributes);
+            List<Property<Object>> properties = extractProperties(updatedKey.getNames());
+            StringBuilder jpqlQuery = new StringBuilder(QueryBuilder.updateQuery(daoComponent().getEntityName()))
+                    .append(" set ");
+            for (Iterator<Property<Object>> it = properties.iterator(); it.hasNext();) {
+                String name = it.next().getName();
+                jpqlQuery.append("e.").append(name).append(" = :").append(UPDATE_PARAM_PREFIX).append(name)
+                        .append(it.hasNext() ? ", " : "");
+            }
+            jpqlQuery.append(" where ").append(exampleQuery.getWhere());
+            result = new UpdateQuery(properties, exampleQuery, jpqlQuery.toString());
+            log.debugv("lookupUpdateQuery: Created query {0}", result.getQuery());
+            cache.putUpdateQuery(exampleKey, updatedKey, result);
+        }
+        return result;
+    }
     
     private List<E> executeExampleQuery(E example, int start, int max, boolean useLikeOperator, SingularAttribute<E, ?>... attributes) {
         //Not sure if this should be the intended behaviour
@@ -220,10 +592,8 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
             return findAll(start, max);
         }
 
-        List<Property<Object>> properties = extractProperties(attributes);
-        String jpqlQuery = exampleQuery(allQuery(), properties, useLikeOperator);
-        log.debugv("findBy|findByLike: Created query {0}", jpqlQuery);
-        TypedQuery<E> query = entityManager().createQuery(jpqlQuery, entityClass());
+        ExampleQuery exampleQuery = lookupExampleQuery(useLikeOperator, attributes);
+        TypedQuery<E> query = entityManager().createQuery(exampleQuery.getSelectQuery(), entityClass());
 
         // set starting position
         if (start > 0) {
@@ -235,7 +605,7 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
             query.setMaxResults(max);
         }
 
-        addParameters(query, example, properties, useLikeOperator);
+        addParameters(query, example, exampleQuery.getProperties(), useLikeOperator);
         return query.getResultList();
     }
     
@@ -243,11 +613,9 @@ public class EntityDaoHandler<E, PK extends Serializable> extends AbstractEntity
         if (isEmpty(attributes)) {
             return count();
         }
-        List<Property<Object>> properties = extractProperties(attributes);
-        String jpqlQuery = exampleQuery(countQuery(), properties, useLikeOperator);
-        log.debugv("count: Created query {0}", jpqlQuery);
-        TypedQuery<Long> query = entityManager().createQuery(jpqlQuery, Long.class);
-        addParameters(query, example, properties, useLikeOperator);
+        ExampleQuery exampleQuery = lookupExampleQuery(useLikeOperator, attributes);
+        TypedQuery<Long> query = entityManager().createQuery(exampleQuery.getCountQuery(), Long.class);
+        addParameters(query, example, exampleQuery.getProperties(), useLikeOperator);
         return query.getSingleResult();
     }
 
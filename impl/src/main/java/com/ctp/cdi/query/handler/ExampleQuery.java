@@ -0,0 +1,91 @@
+package com.ctp.cdi.query.handler;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.solder.properties.Property;
+
+/**
+ * Resolved query by example for an entity and a set of example attributes:
+ * the accessible entity properties and the JPQL using them.
+ */
+final class ExampleQuery {
+
+    private final List<Property<Object>> properties;
+    private final String where;
+    private final String selectQuery;
+    private final String countQuery;
+    private final String deleteQuery;
+
+    ExampleQuery(List<Property<Object>> properties, String where, String selectQuery, String countQuery,
+            String deleteQuery) {
+        this.properties = properties;
+        this.where = where;
+        this.selectQuery = selectQuery;
+        this.countQuery = countQuery;
+        this.deleteQuery = deleteQuery;
+    }
+
+    List<Property<Object>> getProperties() {
+        return properties;
+    }
+
+    String getWhere() {
+        return where;
+    }
+
+    String getSelectQuery() {
+        return selectQuery;
+    }
+
+    String getCountQuery() {
+        return countQuery;
+    }
+
+    String getDeleteQuery() {
+        return deleteQuery;
+    }
+
+    /**
+     * Cache key. Attribute names are sorted, as the resulting query does
+     * not depend on the order they were passed in.
+     */
+    static final class Key {
+
+        private final Class<?> entityClass;
+        private final String[] names;
+        private final boolean like;
+        private final int hash;
+
+        Key(Class<?> entityClass, String[] names, boolean like) {
+            this.entityClass = entityClass;
+            this.names = names.clone();
+            this.like = like;
+            Arrays.sort(this.names);
+            this.hash = 31 * (31 * entityClass.hashCode() + Arrays.hashCode(this.names)) + (like ? 1 : 0);
+        }
+
+        String[] getNames() {
+            return names;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return like == other.like && entityClass.equals(other.entityClass) && Arrays.equals(names, other.names);
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.ctp.cdi.query.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+
+import org.jboss.solder.properties.Property;
+
+/**
+ * Resolved lookup of several entities by primary key. Simple keys are matched
+ * with an IN list. Composite keys, either embedded or by id class, are matched
+ * with one condition per key, as JPQL does not support IN on multiple columns.
+ */
+final class PrimaryKeyQuery {
+
+    private static final String KEYS_PARAM = "ids";
+
+    private final String selectQuery;
+    private final String[] paths;
+    private final List<Property<Object>> keyProperties;
+    private final List<Property<Object>> entityProperties;
+    private final int chunkSize;
+
+    /**
+     * @param selectQuery       Query selecting all entities as {@code e}.
+     * @param paths             Key attribute paths, e.g. {@code e.id}.
+     * @param keyProperties     Properties of a composite key class. Empty for simple keys.
+     * @param entityProperties  Entity properties matching the key class properties for
+     *                          id class keys, empty otherwise.
+     * @param maxParameters     Maximum number of bind parameters per query.
+     */
+    PrimaryKeyQuery(String selectQuery, String[] paths, List<Property<Object>> keyProperties,
+            List<Property<Object>> entityProperties, int maxParameters) {
+        this.selectQuery = selectQuery;
+        this.paths = paths;
+        this.keyProperties = keyProperties;
+        this.entityProperties = entityProperties;
+        this.chunkSize = Math.max(1, maxParameters / paths.length);
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    String getQuery(int keys) {
+        StringBuilder result = new StringBuilder(selectQuery).append(" where ");
+        if (!isComposite()) {
+            return result.append(paths[0]).append(" in :").append(KEYS_PARAM).toString();
+        }
+        for (int i = 0; i < keys; i++) {
+            result.append(i > 0 ? " or (" : "(");
+            for (int j = 0; j < paths.length; j++) {
+                result.append(j > 0 ? " and " : "").append(paths[j]).append(" = :").append(param(i, j));
+            }
+            result.append(")");
+        }
+        return result.toString();
+    }
+
+    void bind(Query query, List<?> keys) {
+        if (!isComposite()) {
+            query.setParameter(KEYS_PARAM, keys);
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            for (int j = 0; j < paths.length; j++) {
+                query.setParameter(param(i, j), keyProperties.get(j).getValue(keys.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Key attribute values of a primary key, comparable with {@link #entityKey(Object, PersistenceUnitUtil)}.
+     */
+    List<Object> key(Object primaryKey) {
+        if (!isComposite()) {
+            return Collections.singletonList(primaryKey);
+        }
+        return values(keyProperties, primaryKey);
+    }
+
+    List<Object> entityKey(Object entity, PersistenceUnitUtil util) {
+        if (!entityProperties.isEmpty()) {
+            return values(entityProperties, entity);
+        }
+        return key(util.getIdentifier(entity));
+    }
+
+    private boolean isComposite() {
+        return !keyProperties.isEmpty();
+    }
+
+    private List<Object> values(List<Property<Object>> properties, Object source) {
+        List<Object> result = new ArrayList<Object>(properties.size());
+        for (Property<Object> property : properties) {
+            result.add(property.getValue(source));
+        }
+        return result;
+    }
+
+    private String param(int key, int attribute) {
+        return "id_" + key + "_" + attribute;
+    }
+
+}
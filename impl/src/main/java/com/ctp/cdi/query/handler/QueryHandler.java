@@ -1,8 +1,9 @@
 package com.ctp.cdi.query.handler;
 
 import java.io.Serializable;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.ProxyObject;
@@ -14,15 +15,19 @@ import javax.inject.Inject;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.InvocationContext;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 import org.jboss.solder.logging.Logger;
 
 import com.ctp.cdi.query.builder.QueryBuilder;
 import com.ctp.cdi.query.builder.QueryBuilderFactory;
+import com.ctp.cdi.query.cache.TransactionalResultCache;
 import com.ctp.cdi.query.meta.DaoComponent;
 import com.ctp.cdi.query.meta.DaoComponents;
 import com.ctp.cdi.query.meta.DaoMethod;
 import com.ctp.cdi.query.meta.Initialized;
+import com.ctp.cdi.query.spi.AsyncQueryExecutor;
+import com.ctp.cdi.query.spi.GeneratedDao;
 
 /**
  * Entry point for query processing.
@@ -44,36 +49,125 @@ public class QueryHandler implements Serializable {
     @Inject @Initialized
     private DaoComponents components;
     
+    @Inject
+    private QueryInvocationPlans plans;
+    
+    @Inject
+    private TransactionalResultCache resultCache;
+    
+    @Inject
+    private AsyncQueryExecutor asyncExecutor;
+    
     @Inject
     private Event<CdiQueryInvocationContext> contextCreated;
     
     @AroundInvoke
     public Object handle(InvocationContext context) {
+        CdiQueryInvocationContext previous = CdiQueryContextFactory.current();
         CdiQueryInvocationContext queryContext = null;
         try {
-            Class<?> daoClass = extractFromProxy(context);
-            DaoComponent dao = components.lookupComponent(daoClass);
-            DaoMethod method = components.lookupMethod(daoClass, context.getMethod());
-            queryContext = createContext(context, dao, method);
-            QueryBuilder builder = queryBuilder.build(method);
-            return builder.execute(queryContext);
+            QueryInvocationPlan plan = lookupPlan(context);
+            if (plan.getDaoMethod().isAsync()) {
+                return ReadOnlyQueryScope.current() != null ? runInline(context, plan) : submit(context, plan);
+            }
+            queryContext = createContext(context, plan, resolveEntityManager(plan));
+            return plan.getBuilder().execute(queryContext);
         } catch (Exception e) {
             log.error("Query execution error", e);
             if (queryContext != null) {
                 throw new QueryInvocationException(e, queryContext);
             }
             throw new QueryInvocationException(e, context);
+        } finally {
+            CdiQueryContextFactory.restore(previous);
         }
     }
 
-    private CdiQueryInvocationContext createContext(InvocationContext context, DaoComponent dao, DaoMethod method) {
-        CdiQueryInvocationContext queryContext = new CdiQueryInvocationContext(context, method, resolveEntityManager(dao));
+    private CdiQueryInvocationContext createContext(InvocationContext context, QueryInvocationPlan plan,
+            EntityManager entityManager) {
+        CdiQueryInvocationContext queryContext = new CdiQueryInvocationContext(context, plan.getDaoMethod(),
+                entityManager, resultCache);
         contextCreated.fire(queryContext);
         return queryContext;
     }
+
+    /**
+     * Entity managers are not thread safe, so asynchronous queries run on a dedicated one
+     * created from the factory of the DAO's entity manager. Only the factory is resolved
+     * on the calling thread. The entity manager is created and closed by the query itself,
+     * so a query cancelled before it ran leaves nothing open. Closing it after the query
+     * leaves the result detached.
+     */
+    private Future<Object> submit(final InvocationContext context, final QueryInvocationPlan plan) {
+        final EntityManagerFactory factory = resolveEntityManager(plan).getEntityManagerFactory();
+        return asyncExecutor.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+                CdiQueryInvocationContext previous = CdiQueryContextFactory.current();
+                CdiQueryInvocationContext queryContext = null;
+                EntityManager dedicated = factory.createEntityManager();
+                try {
+                    queryContext = createContext(context, plan, dedicated);
+                    return plan.getBuilder().execute(queryContext);
+                } catch (RuntimeException e) {
+                    log.error("Asynchronous query execution error", e);
+                    if (queryContext != null) {
+                        throw new QueryInvocationException(e, queryContext);
+                    }
+                    throw new QueryInvocationException(e, context);
+                } finally {
+                    CdiQueryContextFactory.restore(previous);
+                    dedicated.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * A parallel query already runs on a pool thread. Submitting to the pool again and
+     * waiting for the result could exhaust it, so the query runs right away in the
+     * read only scope of the parallel query.
+     */
+    private Future<Object> runInline(final InvocationContext context, final QueryInvocationPlan plan) {
+        FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() {
+                CdiQueryInvocationContext queryContext = createContext(context, plan, resolveEntityManager(plan));
+                try {
+                    return plan.getBuilder().execute(queryContext);
+                } catch (RuntimeException e) {
+                    log.error("Asynchronous query execution error", e);
+                    throw new QueryInvocationException(e, queryContext);
+                }
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    private QueryInvocationPlan lookupPlan(InvocationContext context) {
+        Class<?> proxyClass = context.getTarget().getClass();
+        QueryInvocationPlan plan = plans.get(proxyClass, context.getMethod());
+        if (plan == null) {
+            plan = plans.add(proxyClass, context.getMethod(), createPlan(context));
+        }
+        return plan;
+    }
+
+    private QueryInvocationPlan createPlan(InvocationContext context) {
+        Class<?> daoClass = extractFromProxy(context);
+        DaoComponent dao = components.lookupComponent(daoClass);
+        DaoMethod method = components.lookupMethod(daoClass, context.getMethod());
+        QueryBuilder builder = queryBuilder.build(method);
+        log.debugv("createPlan: Resolved {0} on {1} to {2}", context.getMethod().getName(), daoClass, builder);
+        return new QueryInvocationPlan(dao, method, builder, dao.resolveEntityManagerQualifiers());
+    }
     
     protected Class<?> extractFromProxy(InvocationContext ctx) {
         Class<?> proxyClass = ctx.getTarget().getClass();
+        if (proxyClass.isAnnotationPresent(GeneratedDao.class)) {
+            return proxyClass.getAnnotation(GeneratedDao.class).value();
+        }
         if (ProxyFactory.isProxyClass(proxyClass)) {
             if (isInterfaceProxy(proxyClass)) {
                 return extractFromInterface(proxyClass);
@@ -99,24 +193,12 @@ public class QueryHandler implements Serializable {
         return null;
     }
     
-    private EntityManager resolveEntityManager(DaoComponent dao) {
-        Annotation[] qualifiers = extractFromTarget(dao.getDaoClass());
-        if (qualifiers == null || qualifiers.length == 0) {
-            qualifiers = dao.getEntityManagerQualifiers(); 
-        }
-        if (qualifiers == null || qualifiers.length == 0) {
-            return entityManager.get();
-        }
-        return entityManager.select(qualifiers).get();
-    }
-
-    private Annotation[] extractFromTarget(Class<?> target) {
-        try {
-            Method method = target.getDeclaredMethod("getEntityManager");
-            return method.getAnnotations();
-        } catch (Exception e) {
-            return null;
+    private EntityManager resolveEntityManager(QueryInvocationPlan plan) {
+        ReadOnlyQueryScope scope = ReadOnlyQueryScope.current();
+        if (scope != null) {
+            return scope.entityManagerFor(plan.getQualifiers());
         }
+        return plan.hasQualifiers() ? entityManager.select(plan.getQualifiers()).get() : entityManager.get();
     }
 
 }
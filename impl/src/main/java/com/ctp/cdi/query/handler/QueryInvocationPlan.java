@@ -0,0 +1,47 @@
+package com.ctp.cdi.query.handler;
+
+import java.lang.annotation.Annotation;
+
+import com.ctp.cdi.query.builder.QueryBuilder;
+import com.ctp.cdi.query.meta.DaoComponent;
+import com.ctp.cdi.query.meta.DaoMethod;
+
+/**
+ * Everything needed to dispatch a call on a specific DAO proxy method. Resolved
+ * once on the first invocation and reused afterwards, so the hot path does not
+ * need any proxy introspection, meta data lookup or CDI resolution.
+ */
+final class QueryInvocationPlan {
+
+    private final DaoComponent dao;
+    private final DaoMethod daoMethod;
+    private final QueryBuilder builder;
+    private final Annotation[] qualifiers;
+
+    QueryInvocationPlan(DaoComponent dao, DaoMethod daoMethod, QueryBuilder builder, Annotation[] qualifiers) {
+        this.dao = dao;
+        this.daoMethod = daoMethod;
+        this.builder = builder;
+        this.qualifiers = qualifiers;
+    }
+
+    DaoComponent getDao() {
+        return dao;
+    }
+
+    DaoMethod getDaoMethod() {
+        return daoMethod;
+    }
+
+    QueryBuilder getBuilder() {
+        return builder;
+    }
+
+    Annotation[] getQualifiers() {
+        return qualifiers;
+    }
+
+    boolean hasQualifiers() {
+        return qualifiers.length > 0;
+    }
+}
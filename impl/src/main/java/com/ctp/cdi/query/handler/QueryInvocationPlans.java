@@ -0,0 +1,42 @@
+package com.ctp.cdi.query.handler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Invocation plans of all DAO methods called so far, keyed by the class of the
+ * DAO proxy or generated implementation. Plans hold beans of the deployment, so
+ * they live as long as the application and are dropped on redeployment.
+ */
+@ApplicationScoped
+public class QueryInvocationPlans {
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, QueryInvocationPlan>> plans =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, QueryInvocationPlan>>();
+
+    QueryInvocationPlan get(Class<?> targetClass, Method method) {
+        ConcurrentMap<Method, QueryInvocationPlan> methods = plans.get(targetClass);
+        return methods != null ? methods.get(method) : null;
+    }
+
+    /**
+     * @return  The plan to use, which is the one of a concurrent caller if it
+     *          added one first.
+     */
+    QueryInvocationPlan add(Class<?> targetClass, Method method, QueryInvocationPlan plan) {
+        ConcurrentMap<Method, QueryInvocationPlan> methods = plans.get(targetClass);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<Method, QueryInvocationPlan>();
+            ConcurrentMap<Method, QueryInvocationPlan> existing = plans.putIfAbsent(targetClass, methods);
+            if (existing != null) {
+                methods = existing;
+            }
+        }
+        QueryInvocationPlan existing = methods.putIfAbsent(method, plan);
+        return existing != null ? existing : plan;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.ctp.cdi.query.handler;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+
+/**
+ * Replaces the entity managers of DAO calls on the current thread by dedicated
+ * ones, one per persistence unit. They never join a transaction and use flush
+ * mode {@link FlushModeType#COMMIT}, so nothing is written to the database.
+ * Closing the scope discards all changes made to loaded entities.
+ *
+ * The scope runs on worker threads, where the contextual entity managers of the
+ * DAOs might not be usable. Their factories are resolved on the calling thread
+ * and handed in per set of entity manager qualifiers.
+ */
+final class ReadOnlyQueryScope {
+
+    private static final ThreadLocal<ReadOnlyQueryScope> CURRENT = new ThreadLocal<ReadOnlyQueryScope>();
+
+    private final Map<List<Annotation>, EntityManagerFactory> factories;
+    private final Map<EntityManagerFactory, EntityManager> entityManagers =
+            new HashMap<EntityManagerFactory, EntityManager>();
+
+    private ReadOnlyQueryScope(Map<List<Annotation>, EntityManagerFactory> factories) {
+        this.factories = factories;
+    }
+
+    static ReadOnlyQueryScope open(Map<List<Annotation>, EntityManagerFactory> factories) {
+        ReadOnlyQueryScope scope = new ReadOnlyQueryScope(factories);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static ReadOnlyQueryScope current() {
+        return CURRENT.get();
+    }
+
+    EntityManager entityManagerFor(Annotation[] qualifiers) {
+        EntityManagerFactory factory = factories.get(Arrays.asList(qualifiers));
+        if (factory == null) {
+            throw new IllegalStateException("No entity manager factory resolved for qualifiers " +
+                    Arrays.toString(qualifiers));
+        }
+        EntityManager entityManager = entityManagers.get(factory);
+        if (entityManager == null) {
+            entityManager = factory.createEntityManager();
+            entityManager.setFlushMode(FlushModeType.COMMIT);
+            entityManagers.put(factory, entityManager);
+        }
+        return entityManager;
+    }
+
+    void close() {
+        CURRENT.remove();
+        for (EntityManager entityManager : entityManagers.values()) {
+            entityManager.close();
+        }
+        entityManagers.clear();
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.ctp.cdi.query.handler;
+
+import java.util.List;
+
+import org.jboss.solder.properties.Property;
+
+/**
+ * Resolved bulk update by example for an entity: the accessible entity properties
+ * written in the set clause, the {@link ExampleQuery} restricting the updated rows
+ * and the JPQL using both.
+ */
+final class UpdateQuery {
+
+    private final List<Property<Object>> properties;
+    private final ExampleQuery exampleQuery;
+    private final String query;
+
+    UpdateQuery(List<Property<Object>> properties, ExampleQuery exampleQuery, String query) {
+        this.properties = properties;
+        this.exampleQuery = exampleQuery;
+        this.query = query;
+    }
+
+    List<Property<Object>> getProperties() {
+        return properties;
+    }
+
+    ExampleQuery getExampleQuery() {
+        return exampleQuery;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+}
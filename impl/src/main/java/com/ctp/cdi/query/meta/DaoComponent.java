@@ -6,6 +6,7 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +15,7 @@ import org.jboss.solder.logging.Logger;
 import org.jboss.solder.reflection.AnnotationInstanceProvider;
 
 import com.ctp.cdi.query.WithEntityManager;
+import com.ctp.cdi.query.builder.QueryBuilder;
 import com.ctp.cdi.query.util.EntityUtils;
 
 /**
@@ -33,6 +35,9 @@ public class DaoComponent {
 
     private final Class<?> daoClass;
     private final DaoEntity entityClass;
+    private final String entityName;
+    private final String selectQuery;
+    private final String countQuery;
     private Annotation[] qualifiers;
 
     private final Map<Method, DaoMethod> methods = new HashMap<Method, DaoMethod>();
@@ -43,11 +48,30 @@ public class DaoComponent {
         }
         this.daoClass = daoClass;
         this.entityClass = entityClass;
+        this.entityName = EntityUtils.entityName(entityClass.getEntityClass());
+        this.selectQuery = QueryBuilder.selectQuery(entityName);
+        this.countQuery = QueryBuilder.countQuery(entityName);
         initialize();
     }
     
     public String getEntityName() {
-        return EntityUtils.entityName(entityClass.getEntityClass());
+        return entityName;
+    }
+
+    /**
+     * Returns the JPQL query selecting all entities of the DAO.
+     * @return          Select query, computed once per DAO.
+     */
+    public String getSelectQuery() {
+        return selectQuery;
+    }
+
+    /**
+     * Returns the JPQL query counting all entities of the DAO.
+     * @return          Count query, computed once per DAO.
+     */
+    public String getCountQuery() {
+        return countQuery;
     }
 
     /**
@@ -100,6 +124,36 @@ public class DaoComponent {
         return Arrays.copyOf(qualifiers, qualifiers.length);
     }
 
+    /**
+     * Returns the qualifiers used to look up the entity manager of the DAO. Qualifiers on
+     * a {@code getEntityManager} method of the DAO take precedence over {@link WithEntityManager}.
+     * @return          A list of annotations, empty when using the default entity manager.
+     */
+    public Annotation[] resolveEntityManagerQualifiers() {
+        Annotation[] result = extractFromEntityManagerMethod();
+        if (result == null || result.length == 0) {
+            result = getEntityManagerQualifiers();
+        }
+        return result == null ? new Annotation[] {} : result;
+    }
+
+    /**
+     * Returns the meta data of all methods of the DAO.
+     * @return          Method meta data, including inherited methods.
+     */
+    public Collection<DaoMethod> getMethods() {
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
+    private Annotation[] extractFromEntityManagerMethod() {
+        try {
+            Method method = daoClass.getDeclaredMethod("getEntityManager");
+            return method.getAnnotations();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private void initialize() {
         Collection<Class<?>> allImplemented = collectClasses();
         for (Class<?> implemented : allImplemented) {
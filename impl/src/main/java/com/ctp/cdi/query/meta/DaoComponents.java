@@ -3,6 +3,8 @@ package com.ctp.cdi.query.meta;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +69,14 @@ public class DaoComponents implements Serializable {
         return lookupComponent(daoClass).lookupMethod(method);
     }
     
+    /**
+     * Repository access - all registered DAO components.
+     * @return              Meta data of all DAO classes added.
+     */
+    public Collection<DaoComponent> getComponents() {
+        return Collections.unmodifiableCollection(daos.values());
+    }
+    
     private DaoEntity extractEntityMetaData(Class<?> daoClass) {
         for (MetadataExtractor extractor : extractors) {
             DaoEntity entity = extractor.extract(daoClass);
@@ -4,12 +4,25 @@ import static com.ctp.cdi.query.util.QueryUtils.isNotEmpty;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
 
+import com.ctp.cdi.query.FetchJoin;
+import com.ctp.cdi.query.Modifying;
 import com.ctp.cdi.query.Query;
+import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
 import com.ctp.cdi.query.builder.MethodExpressionException;
+import com.ctp.cdi.query.builder.QueryBuilder;
 import com.ctp.cdi.query.builder.part.QueryRoot;
+import com.ctp.cdi.query.builder.postprocessor.FetchJoinQueryStringPostProcessor;
+import com.ctp.cdi.query.builder.result.Projection;
 import com.ctp.cdi.query.builder.result.QueryProcessor;
 import com.ctp.cdi.query.builder.result.QueryProcessorFactory;
+import com.ctp.cdi.query.param.ParameterBinding;
 
 /**
  * Stores information about a specific method of a DAO:
@@ -18,6 +31,8 @@ import com.ctp.cdi.query.builder.result.QueryProcessorFactory;
  *     <li>Whether this method delegates, is annotated or is parsed</li>
  *     <li>A reference to the parent DAO</li>
  *     <li>For parsed DAO methods, also the JPQL string is cached</li>
+ *     <li>Whether the query runs asynchronously, and which result type it produces</li>
+ *     <li>For parsed DAO methods, the projection mapping selected attributes into the result</li>
  * </ul>
  * 
  * @author thomashug
@@ -29,13 +44,24 @@ public class DaoMethod {
     private final DaoComponent dao;
     private final QueryRoot queryRoot;
     private final QueryProcessor queryProcessor;
+    private final ParameterBinding parameterBinding;
+    private final boolean async;
+    private final Class<?> resultType;
+    private final Projection projection;
+    private final FetchJoinQueryStringPostProcessor fetchJoins;
     
     public DaoMethod(Method method, DaoComponent dao) {
         this.method = method;
         this.dao = dao;
         this.methodType  = extractMethodType();
+        this.async = methodType != MethodType.DELEGATE && Future.class.equals(method.getReturnType());
+        this.resultType = extractResultType();
+        this.projection = initProjection();
         this.queryRoot = initQueryRoot();
-        this.queryProcessor = QueryProcessorFactory.newInstance(method).build();
+        verifyAsync();
+        this.queryProcessor = QueryProcessorFactory.newInstance(method, resultType, projection, dao).build();
+        this.parameterBinding = ParameterBinding.create(method);
+        this.fetchJoins = initFetchJoins();
     }
     
     public boolean returns(Class<?> returnType) {
@@ -54,10 +80,94 @@ public class DaoMethod {
     
     private QueryRoot initQueryRoot() {
         if (methodType == MethodType.PARSE) {
-            return QueryRoot.create(method.getName(), dao);
+            return QueryRoot.create(method.getName(), dao,
+                    projection != null ? projection.getSelection(QueryBuilder.ENTITY_NAME) : null);
         }
         return QueryRoot.UNKNOWN_ROOT;
     }
+
+    /**
+     * Method expressions returning neither the entity nor a basic type, as list
+     * elements or single result, select the matching attributes only.
+     */
+    private Projection initProjection() {
+        if (methodType != MethodType.PARSE) {
+            return null;
+        }
+        Class<?> elementType = extractElementType();
+        if (elementType == null || !Projection.isProjection(elementType, dao.getEntityClass())) {
+            return null;
+        }
+        return Projection.of(elementType, dao.getEntityClass());
+    }
+
+    private Class<?> extractElementType() {
+        Type type = method.getGenericReturnType();
+        if (async) {
+            if (!(type instanceof ParameterizedType)) {
+                return null;
+            }
+            type = ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType && List.class.equals(((ParameterizedType) type).getRawType())) {
+            Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+            return argument instanceof Class ? (Class<?>) argument : null;
+        }
+        return null;
+    }
+    
+    /**
+     * The type argument of an asynchronous method's {@link Future}. Falls back to the
+     * entity type if the argument is a type variable.
+     */
+    private Class<?> extractResultType() {
+        if (!async) {
+            return method.getReturnType();
+        }
+        Type type = method.getGenericReturnType();
+        if (type instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+            if (argument instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) argument).getRawType();
+            }
+        }
+        return dao.getEntityClass();
+    }
+
+    /**
+     * Asynchronous queries run on an entity manager which is closed once the result
+     * is read, and outside of the caller's transaction.
+     */
+    private void verifyAsync() {
+        if (!async) {
+            return;
+        }
+        if (QueryResult.class.equals(resultType) || ResultCursor.class.equals(resultType)
+                || Iterator.class.equals(resultType) || method.isAnnotationPresent(Modifying.class)) {
+            throw new IllegalStateException("Asynchronous DAO methods only support list or single results: "
+                    + method);
+        }
+    }
+    
+    private FetchJoinQueryStringPostProcessor initFetchJoins() {
+        FetchJoin fetch = method.getAnnotation(FetchJoin.class);
+        if (fetch == null || methodType == MethodType.DELEGATE) {
+            return null;
+        }
+        if (methodType == MethodType.ANNOTATED && isNotEmpty(method.getAnnotation(Query.class).sql())) {
+            throw new IllegalStateException("Fetch joins are not supported on native queries: " + method);
+        }
+        if (projection != null) {
+            throw new IllegalStateException("Fetch joins are not supported on projections: " + method);
+        }
+        return FetchJoinQueryStringPostProcessor.forAttributes(dao.getEntityClass(), fetch.value());
+    }
     
     private boolean isAnnotated() {
         if (method.isAnnotationPresent(Query.class)) {
@@ -83,6 +193,10 @@ public class DaoMethod {
         }
     }
 
+    public Method getMethod() {
+        return method;
+    }
+
     public MethodType getMethodType() {
         return methodType;
     }
@@ -99,4 +213,28 @@ public class DaoMethod {
         return queryProcessor;
     }
 
+    public ParameterBinding getParameterBinding() {
+        return parameterBinding;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public boolean hasFetchJoins() {
+        return fetchJoins != null;
+    }
+
+    public FetchJoinQueryStringPostProcessor getFetchJoins() {
+        return fetchJoins;
+    }
+
 }
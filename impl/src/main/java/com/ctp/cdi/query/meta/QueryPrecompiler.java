@@ -0,0 +1,86 @@
+package com.ctp.cdi.query.meta;
+
+import static com.ctp.cdi.query.util.QueryUtils.isNotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.jboss.solder.logging.Logger;
+
+import com.ctp.cdi.query.Query;
+
+/**
+ * Creates the query of each DAO method once after deployment, so the persistence
+ * provider parses it and primes its query plan cache before the first request.
+ * Queries the provider rejects are reported instead of failing on first use.
+ * Native queries are skipped, as providers do not validate them up front.
+ *
+ * Enabled with the system property {@value #ENABLED_PROPERTY}.
+ */
+public class QueryPrecompiler {
+
+    public static final String ENABLED_PROPERTY = "com.ctp.cdi.query.precompile";
+
+    private final Logger log = Logger.getLogger(QueryPrecompiler.class);
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * @param dao               The DAO to create the queries for.
+     * @param entityManager     Entity manager of the DAO's persistence unit.
+     * @return                  One exception per invalid query, empty if all queries are valid.
+     */
+    public List<RuntimeException> precompile(DaoComponent dao, EntityManager entityManager) {
+        List<RuntimeException> problems = new ArrayList<RuntimeException>();
+        long start = System.nanoTime();
+        int created = 0;
+        for (DaoMethod method : dao.getMethods()) {
+            try {
+                if (precompile(method, entityManager)) {
+                    created++;
+                }
+            } catch (IllegalArgumentException e) {
+                problems.add(invalid(method, e));
+            } catch (PersistenceException e) {
+                problems.add(invalid(method, e));
+            }
+        }
+        log.infov("precompile: Created {0} queries of {1} in {2} ms, {3} invalid", created,
+                dao.getDaoClass().getName(), (System.nanoTime() - start) / 1000000L, problems.size());
+        return problems;
+    }
+
+    private boolean precompile(DaoMethod method, EntityManager entityManager) {
+        if (method.getMethodType() == MethodType.PARSE) {
+            entityManager.createQuery(postProcess(method, method.getQueryRoot().getJpqlQuery()));
+            return true;
+        }
+        if (method.getMethodType() != MethodType.ANNOTATED) {
+            return false;
+        }
+        Query query = method.getMethod().getAnnotation(Query.class);
+        if (isNotEmpty(query.named())) {
+            entityManager.createNamedQuery(query.named());
+            return true;
+        }
+        if (isNotEmpty(query.value())) {
+            entityManager.createQuery(postProcess(method, query.value()));
+            return true;
+        }
+        return false;
+    }
+
+    private String postProcess(DaoMethod method, String jpql) {
+        return method.hasFetchJoins() ? method.getFetchJoins().postProcess(jpql) : jpql;
+    }
+
+    private RuntimeException invalid(DaoMethod method, RuntimeException cause) {
+        return new IllegalStateException("Invalid query on " + method.getMethod() + ": " + cause.getMessage(), cause);
+    }
+
+}
@@ -1,25 +1,42 @@
 package com.ctp.cdi.query.meta.unit;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URL;
-
-import org.w3c.dom.Document;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 class Descriptor {
     
-    private final Document document;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] content;
     private final URL url;
 
-    public Descriptor(Document document, URL url) {
-        this.document = document;
+    public Descriptor(byte[] content, URL url) {
+        this.content = content;
         this.url = url;
     }
 
-    public Document getDocument() {
-        return document;
+    public InputStream openStream() {
+        return new ByteArrayInputStream(content);
     }
 
     public URL getUrl() {
         return url;
     }
 
-}
\ No newline at end of file
+    public String getChecksum() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+}
@@ -2,24 +2,33 @@ package com.ctp.cdi.query.meta.unit;
 
 import static java.lang.Thread.currentThread;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.net.URL;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-abstract class DescriptorReader {
+/**
+ * Reads descriptors with a streaming parser. The parsed content of a descriptor is
+ * kept in the {@link DescriptorSnapshot} under its checksum, so unchanged descriptors
+ * are not parsed again.
+ */
+abstract class DescriptorReader<T extends Serializable> {
     
-    private final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+    private final DescriptorSnapshot snapshot;
+
+    DescriptorReader(DescriptorSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
     
     List<Descriptor> readAllFromClassPath(String resource) throws IOException {
         List<Descriptor> result = new LinkedList<Descriptor>();
@@ -36,17 +45,20 @@ abstract class DescriptorReader {
     }
     
     Descriptor readFromUrl(URL url) throws IOException {
-        if (!exists(url)) {
+        InputStream stream = open(url);
+        if (stream == null) {
             throw new IllegalArgumentException("URL does not exist: " + url);
         }
-        InputStream stream = url.openStream();
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            return new Descriptor(builder.parse(new InputSource(stream)), url);
-        } catch (SAXException e) {
-            throw new RuntimeException("Failed reading XML document", e);
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException("Failed reading XML document", e);
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = stream.read(buffer); read != -1; read = stream.read(buffer)) {
+                content.write(buffer, 0, read);
+            }
+            if (content.size() == 0) {
+                throw new IllegalArgumentException("URL does not exist: " + url);
+            }
+            return new Descriptor(content.toByteArray(), url);
         } finally {
             stream.close();
         }
@@ -60,6 +72,29 @@ abstract class DescriptorReader {
             return readFromClassPath(resource);
         }
     }
+
+    @SuppressWarnings("unchecked")
+    T readContent(Descriptor descriptor) {
+        String key = getClass().getSimpleName() + ":" + descriptor.getChecksum();
+        T result = (T) snapshot.lookup(key);
+        if (result != null) {
+            return result;
+        }
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(descriptor.openStream());
+            try {
+                result = parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Failed reading XML document " + descriptor.getUrl(), e);
+        }
+        snapshot.update(key, result);
+        return result;
+    }
+
+    abstract T parse(XMLStreamReader reader) throws XMLStreamException;
     
     String extractBaseUrl(URL fileUrl, String resource) {
         String file = fileUrl.toString();
@@ -70,11 +105,11 @@ abstract class DescriptorReader {
         return currentThread().getContextClassLoader();
     }
     
-    boolean exists(URL url) {
+    private InputStream open(URL url) {
         try {
-            return url != null && url.openConnection() != null && url.openConnection().getContentLength() > 0;
+            return url != null ? url.openStream() : null;
         } catch (IOException e) {
-            return false;
+            return null;
         }
     }
 
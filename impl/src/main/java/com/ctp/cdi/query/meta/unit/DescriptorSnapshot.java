@@ -0,0 +1,139 @@
+package com.ctp.cdi.query.meta.unit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.solder.logging.Logger;
+
+/**
+ * Parsed descriptor content keyed by descriptor checksum. With the system property
+ * {@value #LOCATION_PROPERTY} pointing to a file, the snapshot is stored across
+ * restarts and descriptors which did not change are not parsed again.
+ *
+ * The snapshot is a cache only: a missing or unreadable file results in parsing
+ * all descriptors, and content of changed descriptors is dropped on the next store.
+ * Reading the file accepts only collections, strings and the content classes of the
+ * descriptor readers.
+ */
+final class DescriptorSnapshot {
+
+    public static final String LOCATION_PROPERTY = "com.ctp.cdi.query.metadataSnapshot";
+
+    private static final Logger log = Logger.getLogger(DescriptorSnapshot.class);
+
+    private final File file;
+    private final Map<String, Serializable> previous;
+    private final Map<String, Serializable> current = new HashMap<String, Serializable>();
+
+    private DescriptorSnapshot(File file, Map<String, Serializable> previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    public static DescriptorSnapshot load() {
+        String location = System.getProperty(LOCATION_PROPERTY);
+        if (location == null || location.length() == 0) {
+            return new DescriptorSnapshot(null, Collections.<String, Serializable>emptyMap());
+        }
+        File file = new File(location);
+        return new DescriptorSnapshot(file, read(file));
+    }
+
+    public Serializable lookup(String key) {
+        Serializable result = previous.get(key);
+        if (result != null) {
+            current.put(key, result);
+        }
+        return result;
+    }
+
+    public void update(String key, Serializable content) {
+        current.put(key, content);
+    }
+
+    public void store() {
+        if (file == null || current.keySet().equals(previous.keySet())) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeObject(new HashMap<String, Serializable>(current));
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException("Cannot rename " + temp);
+            }
+            log.debugv("store: Stored {0} descriptors in {1}", current.size(), file);
+        } catch (IOException e) {
+            log.warnv("store: Failed to store metadata snapshot {0}: {1}", file, e.getMessage());
+            temp.delete();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Serializable> read(File file) {
+        if (!file.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            ObjectInputStream in = new SnapshotInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return (Map<String, Serializable>) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log.warnv("read: Ignoring unreadable metadata snapshot {0}: {1}", file, e.getMessage());
+        } catch (ClassNotFoundException e) {
+            log.warnv("read: Ignoring outdated metadata snapshot {0}: {1}", file, e.getMessage());
+        } catch (ClassCastException e) {
+            log.warnv("read: Ignoring invalid metadata snapshot {0}: {1}", file, e.getMessage());
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Refuses to resolve any class which the snapshot does not write, so a tampered
+     * file cannot instantiate arbitrary serializable classes.
+     */
+    private static final class SnapshotInputStream extends ObjectInputStream {
+
+        private static final String[] ACCEPTED = {
+            "java.lang.", "java.util.",
+            EntityDescriptorReader.class.getName() + "$",
+            PersistenceUnitReader.class.getName() + "$"
+        };
+
+        private SnapshotInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            for (String accepted : ACCEPTED) {
+                if (name.startsWith(accepted)) {
+                    return super.resolveClass(desc);
+                }
+            }
+            throw new InvalidClassException(name, "Not part of a metadata snapshot");
+        }
+    }
+
+}
@@ -1,81 +1,79 @@
 package com.ctp.cdi.query.meta.unit;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-public class EntityDescriptorReader extends DescriptorReader {
+import com.ctp.cdi.query.meta.unit.EntityDescriptorReader.Mappings;
+
+public class EntityDescriptorReader extends DescriptorReader<Mappings> {
+
+    EntityDescriptorReader(DescriptorSnapshot snapshot) {
+        super(snapshot);
+    }
     
     public MappingFile readAll(String baseUrl, String resource) throws IOException {
-        return readFromDocument(read(baseUrl, resource).getDocument());
+        return readFromMappings(readContent(read(baseUrl, resource)));
     }
 
     public MappingFile readDefaultOrm(String baseUrl) throws IOException {
         try {
             Descriptor desc = read(baseUrl, PersistenceUnit.DEFAULT_ORM_PATH);
-            return readFromDocument(desc.getDocument());
+            return readFromMappings(readContent(desc));
         } catch (IllegalArgumentException e) {
             return new MappingFile(Collections.<EntityDescriptor>emptyList(),
                     Collections.<MappedSuperclassDescriptor>emptyList());
         }
     }
-    
-    public MappingFile readFromDocument(Document doc) {
-        List<EntityDescriptor> entities = new EntityBuilder<EntityDescriptor>() {
-            @Override
-            EntityDescriptor instance(String name, String packageName, String className,
-                    String idClass, String id) {
-                return new EntityDescriptor(name, packageName, className, idClass, id);
-            }
-            @Override
-            String tagName() {
-                return "entity";
-            }
-        }
-        .build(doc);
-        List<MappedSuperclassDescriptor> superClasses = new EntityBuilder<MappedSuperclassDescriptor>() {
-            @Override
-            MappedSuperclassDescriptor instance(String name, String packageName, String className, 
-                    String idClass, String id) {
-                return new MappedSuperclassDescriptor(name, packageName, className, idClass, id);
-            }
-            @Override
-            String tagName() {
-                return "mapped-superclass";
-            }
-        }
-        .build(doc);
-        return new MappingFile(entities, superClasses);
-    }
 
-    private String extractNodeAttribute(Element element, String childName, String attribute) {
-        NodeList list = element.getElementsByTagName(childName);
-        if (list.getLength() == 0) {
-            return null;
+    public MappingFile readFromMappings(Mappings mappings) {
+        List<EntityDescriptor> entities = new LinkedList<EntityDescriptor>();
+        for (Mapping mapping : mappings.entities) {
+            entities.add(new EntityDescriptor(mapping.name, mappings.packageName, mapping.className,
+                    mapping.idClass, mapping.getId()));
         }
-        return extractAttribute(list.item(0), attribute);
-    }
-
-    private String extractAttribute(Node item, String name) {
-        Node node = item.getAttributes().getNamedItem(name);
-        if (node != null) {
-            return node.getTextContent();
+        List<MappedSuperclassDescriptor> superClasses = new LinkedList<MappedSuperclassDescriptor>();
+        for (Mapping mapping : mappings.superClasses) {
+            superClasses.add(new MappedSuperclassDescriptor(mapping.name, mappings.packageName, mapping.className,
+                    mapping.idClass, mapping.getId()));
         }
-        return null;
+        return new MappingFile(entities, superClasses);
     }
 
-    private String extractNodeContent(Element element, String name) {
-        NodeList list = element.getElementsByTagName(name);
-        if (list.getLength() == 0) {
-            return null;
+    @Override
+    Mappings parse(XMLStreamReader reader) throws XMLStreamException {
+        Mappings result = new Mappings();
+        Mapping current = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+                if ("entity".equals(tag)) {
+                    current = new Mapping(reader.getAttributeValue(null, "name"),
+                            reader.getAttributeValue(null, "class"));
+                    result.entities.add(current);
+                } else if ("mapped-superclass".equals(tag)) {
+                    current = new Mapping(reader.getAttributeValue(null, "name"),
+                            reader.getAttributeValue(null, "class"));
+                    result.superClasses.add(current);
+                } else if ("package".equals(tag) && result.packageName == null) {
+                    result.packageName = reader.getElementText();
+                } else if (current != null) {
+                    current.read(tag, reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && current != null
+                    && ("entity".equals(reader.getLocalName()) || "mapped-superclass".equals(reader.getLocalName()))) {
+                current = null;
+            }
         }
-        return list.item(0).getTextContent();
+        return result;
     }
     
     public static class MappingFile {
@@ -95,27 +93,47 @@ public class EntityDescriptorReader extends DescriptorReader {
             return superClasses;
         }
     }
-    
-    private abstract class EntityBuilder<T extends PersistentClassDescriptor> {
-        
-        public List<T> build(Document doc) {
-            List<T> result = new LinkedList<T>();
-            String packageName = extractNodeContent(doc.getDocumentElement(), "package");
-            NodeList mappings = doc.getElementsByTagName(tagName());
-            for (int i = 0; i < mappings.getLength(); i++) {
-                String name = extractAttribute(mappings.item(i), "name");
-                String className = extractAttribute(mappings.item(i), "class");
-                String idClass = extractNodeAttribute((Element) mappings.item(i), "id-class", "class");
-                String id = extractNodeAttribute((Element) mappings.item(i), "id", "name");
-                String embeddedId = extractNodeAttribute((Element) mappings.item(i), "embedded-id", "name");
-                result.add(instance(name, packageName, className, idClass, id != null ? id : embeddedId));
+
+    /**
+     * Parsed content of a mapping file. Class names are resolved only when the
+     * descriptors are built, so the content can be kept in the snapshot.
+     */
+    static class Mappings implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String packageName;
+        private final List<Mapping> entities = new ArrayList<Mapping>();
+        private final List<Mapping> superClasses = new ArrayList<Mapping>();
+    }
+
+    private static class Mapping implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String className;
+        private String idClass;
+        private String id;
+        private String embeddedId;
+
+        private Mapping(String name, String className) {
+            this.name = name;
+            this.className = className;
+        }
+
+        private void read(String tag, XMLStreamReader reader) {
+            if ("id-class".equals(tag) && idClass == null) {
+                idClass = reader.getAttributeValue(null, "class");
+            } else if ("id".equals(tag) && id == null) {
+                id = reader.getAttributeValue(null, "name");
+            } else if ("embedded-id".equals(tag) && embeddedId == null) {
+                embeddedId = reader.getAttributeValue(null, "name");
             }
-            return result;
         }
 
-        abstract T instance(String name, String packageName, String className, String idClass, String id); 
-        
-        abstract String tagName(); 
-        
+        private String getId() {
+            return id != null ? id : embeddedId;
+        }
     }
 }
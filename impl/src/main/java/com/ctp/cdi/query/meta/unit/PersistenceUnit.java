@@ -14,14 +14,9 @@ class PersistenceUnit {
         this.unitName = unitName;
         this.entities = entities;
     }
-    
-    public EntityDescriptor find(Class<?> entityClass) {
-        for (EntityDescriptor entity : entities) {
-            if (entity.is(entityClass)) {
-                return entity;
-            }
-        }
-        return null;
+
+    public List<EntityDescriptor> getEntities() {
+        return entities;
     }
 
     public String getUnitName() {
@@ -1,17 +1,27 @@
 package com.ctp.cdi.query.meta.unit;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import com.ctp.cdi.query.meta.unit.EntityDescriptorReader.MappingFile;
+import com.ctp.cdi.query.meta.unit.PersistenceUnitReader.UnitDefinitions;
 
-public class PersistenceUnitReader extends DescriptorReader {
+public class PersistenceUnitReader extends DescriptorReader<UnitDefinitions> {
+
+    private final DescriptorSnapshot snapshot;
+
+    PersistenceUnitReader(DescriptorSnapshot snapshot) {
+        super(snapshot);
+        this.snapshot = snapshot;
+    }
     
     public List<PersistenceUnit> readAll() throws IOException {
         List<PersistenceUnit> result = new LinkedList<PersistenceUnit>();
@@ -24,25 +34,21 @@ public class PersistenceUnitReader extends DescriptorReader {
 
     private List<PersistenceUnit> lookupUnits(Descriptor descriptor) {
         List<PersistenceUnit> result = new LinkedList<PersistenceUnit>();
-        NodeList list = descriptor.getDocument().getDocumentElement().getElementsByTagName("persistence-unit");
-        for (int i = 0; i < list.getLength(); i++) {
-            Node node = list.item(i);
-            String unitName = extractUnitName(node);
-            String baseUrl = extractBaseUrl(descriptor.getUrl(), PersistenceUnit.RESOURCE_PATH);
-            List<EntityDescriptor> entities = extractMappings((Element) node, baseUrl);
-            result.add(new PersistenceUnit(unitName, entities));
+        String baseUrl = extractBaseUrl(descriptor.getUrl(), PersistenceUnit.RESOURCE_PATH);
+        for (UnitDefinition unit : readContent(descriptor).units) {
+            List<EntityDescriptor> entities = extractMappings(unit, baseUrl);
+            result.add(new PersistenceUnit(unit.unitName, entities));
         }
         return result;
     }
 
-    private List<EntityDescriptor> extractMappings(Element element, String baseUrl) {
+    private List<EntityDescriptor> extractMappings(UnitDefinition unit, String baseUrl) {
         try {
-            EntityDescriptorReader reader = new EntityDescriptorReader();
+            EntityDescriptorReader reader = new EntityDescriptorReader(snapshot);
             List<EntityDescriptor> entities = new LinkedList<EntityDescriptor>();
             List<MappedSuperclassDescriptor> superClasses = new LinkedList<MappedSuperclassDescriptor>();
-            NodeList list = element.getElementsByTagName("mapping-file");
-            for (int i = 0; i < list.getLength(); i++) {
-                MappingFile mappings = reader.readAll(baseUrl, list.item(i).getTextContent());
+            for (String mappingFile : unit.mappingFiles) {
+                MappingFile mappings = reader.readAll(baseUrl, mappingFile);
                 entities.addAll(mappings.getEntities());
                 superClasses.addAll(mappings.getSuperClasses());
             }
@@ -56,8 +62,41 @@ public class PersistenceUnitReader extends DescriptorReader {
         }
     }
 
-    private String extractUnitName(Node node) {
-        return node.getAttributes().getNamedItem("name").getTextContent();
+    @Override
+    UnitDefinitions parse(XMLStreamReader reader) throws XMLStreamException {
+        UnitDefinitions result = new UnitDefinitions();
+        UnitDefinition current = null;
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if ("persistence-unit".equals(reader.getLocalName())) {
+                current = new UnitDefinition(reader.getAttributeValue(null, "name"));
+                result.units.add(current);
+            } else if ("mapping-file".equals(reader.getLocalName()) && current != null) {
+                current.mappingFiles.add(reader.getElementText());
+            }
+        }
+        return result;
+    }
+
+    static class UnitDefinitions implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<UnitDefinition> units = new ArrayList<UnitDefinition>();
+    }
+
+    private static class UnitDefinition implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String unitName;
+        private final List<String> mappingFiles = new ArrayList<String>();
+
+        private UnitDefinition(String unitName) {
+            this.unitName = unitName;
+        }
     }
 
 }
@@ -2,7 +2,9 @@ package com.ctp.cdi.query.meta.unit;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ctp.cdi.query.meta.DaoEntity;
 
@@ -10,7 +12,7 @@ public final class PersistenceUnits {
 
     private static PersistenceUnits instance = new PersistenceUnits();
     
-    private List<PersistenceUnit> persistenceUnits = Collections.emptyList();
+    private volatile Map<Class<?>, EntityDescriptor> entities = Collections.emptyMap();
     
     private PersistenceUnits() {
     }
@@ -20,7 +22,9 @@ public final class PersistenceUnits {
     }
     
     public void init() {
-        persistenceUnits = readPersistenceXmls();
+        DescriptorSnapshot snapshot = DescriptorSnapshot.load();
+        entities = index(readPersistenceXmls(snapshot));
+        snapshot.store();
     }
 
     public boolean isEntity(Class<?> entityClass) {
@@ -59,23 +63,33 @@ public final class PersistenceUnits {
         return null;
     }
     
-    private List<PersistenceUnit> readPersistenceXmls() {
+    private List<PersistenceUnit> readPersistenceXmls(DescriptorSnapshot snapshot) {
         try {
-            PersistenceUnitReader reader = new PersistenceUnitReader();
+            PersistenceUnitReader reader = new PersistenceUnitReader(snapshot);
             return reader.readAll();
         } catch (IOException e) {
             throw new RuntimeException("Failed to read persistence unit info", e);
         }
     }
     
-    private EntityDescriptor find(Class<?> entityClass) {
+    /**
+     * Entities mapped in several units resolve to the first unit, as the
+     * descriptors are read in class path order.
+     */
+    private Map<Class<?>, EntityDescriptor> index(List<PersistenceUnit> persistenceUnits) {
+        Map<Class<?>, EntityDescriptor> result = new HashMap<Class<?>, EntityDescriptor>();
         for (PersistenceUnit unit : persistenceUnits) {
-            EntityDescriptor entity = unit.find(entityClass);
-            if (entity != null) {
-                return entity;
+            for (EntityDescriptor entity : unit.getEntities()) {
+                if (!result.containsKey(entity.getEntityClass())) {
+                    result.put(entity.getEntityClass(), entity);
+                }
             }
         }
-        return null;
+        return Collections.unmodifiableMap(result);
+    }
+    
+    private EntityDescriptor find(Class<?> entityClass) {
+        return entities.get(entityClass);
     }
 
 }
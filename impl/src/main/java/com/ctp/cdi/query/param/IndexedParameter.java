@@ -10,13 +10,13 @@ public class IndexedParameter extends Parameter {
     
     private final int index;
 
-    public IndexedParameter(int index, Object value, int argIndex) {
-        super(value, argIndex);
+    public IndexedParameter(int index, int argIndex) {
+        super(argIndex);
         this.index = index;
     }
 
     @Override
-    public void apply(Query query) {
+    public void apply(Query query, Object value) {
         query.setParameter(index, value);
     }
     
@@ -10,13 +10,13 @@ public class NamedParameter extends Parameter {
 
     private final String name;
 
-    public NamedParameter(String name, Object value, int argIndex) {
-        super(value, argIndex);
+    public NamedParameter(String name, int argIndex) {
+        super(argIndex);
         this.name = name;
     }
 
     @Override
-    public void apply(Query query) {
+    public void apply(Query query, Object value) {
         query.setParameter(name, value);
     }
     
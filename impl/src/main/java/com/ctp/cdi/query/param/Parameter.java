@@ -3,19 +3,18 @@ package com.ctp.cdi.query.param;
 import javax.persistence.Query;
 
 /**
- * Base class for parameters.
+ * Base class for parameters. Describes a single method argument slot,
+ * the actual value is supplied on binding.
  * @author thomashug
  */
 public abstract class Parameter {
     
-    final Object value;
     final int argIndex;
 
-    public Parameter(Object value, int argIndex) {
-        this.value = value;
+    public Parameter(int argIndex) {
         this.argIndex = argIndex;
     }
 
-    public abstract void apply(Query query);
+    public abstract void apply(Query query, Object value);
 
 }
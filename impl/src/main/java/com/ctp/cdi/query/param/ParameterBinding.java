@@ -0,0 +1,94 @@
+package com.ctp.cdi.query.param;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctp.cdi.query.FirstResult;
+import com.ctp.cdi.query.MaxResults;
+import com.ctp.cdi.query.QueryParam;
+
+/**
+ * Immutable description of how the arguments of a DAO method map to query
+ * parameters. Extracted once per method, so an invocation only needs to pair
+ * the slots with the actual argument values.
+ */
+public final class ParameterBinding {
+
+    static final int NO_SLOT = -1;
+
+    private static final Parameter[] NO_PARAMETERS = new Parameter[0];
+
+    private final Parameter[] parameters;
+    private final int maxSlot;
+    private final int firstResultSlot;
+    private final int staticMax;
+
+    private ParameterBinding(Parameter[] parameters, int maxSlot, int firstResultSlot, int staticMax) {
+        this.parameters = parameters;
+        this.maxSlot = maxSlot;
+        this.firstResultSlot = firstResultSlot;
+        this.staticMax = staticMax;
+    }
+
+    public static ParameterBinding create(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        List<Parameter> result = new ArrayList<Parameter>(annotations.length);
+        int maxSlot = NO_SLOT;
+        int firstSlot = NO_SLOT;
+        int paramIndex = 1;
+        for (int i = 0; i < annotations.length; i++) {
+            boolean max = extractFrom(annotations[i], MaxResults.class) != null;
+            boolean first = extractFrom(annotations[i], FirstResult.class) != null;
+            if (max || first) {
+                // last annotated argument wins, as when evaluating arguments in order
+                maxSlot = max ? i : maxSlot;
+                firstSlot = first ? i : firstSlot;
+                continue;
+            }
+            QueryParam qpAnnotation = extractFrom(annotations[i], QueryParam.class);
+            if (qpAnnotation != null) {
+                result.add(new NamedParameter(qpAnnotation.value(), i));
+            } else {
+                result.add(new IndexedParameter(paramIndex++, i));
+            }
+        }
+        Parameter[] parameters = result.isEmpty() ? NO_PARAMETERS : result.toArray(new Parameter[result.size()]);
+        return new ParameterBinding(parameters, maxSlot, firstSlot, extractSizeRestriction(method));
+    }
+
+    Parameter[] getParameters() {
+        return parameters;
+    }
+
+    int getMaxSlot() {
+        return maxSlot;
+    }
+
+    int getFirstResultSlot() {
+        return firstResultSlot;
+    }
+
+    int getStaticMax() {
+        return staticMax;
+    }
+
+    private static int extractSizeRestriction(Method method) {
+        if (method.isAnnotationPresent(com.ctp.cdi.query.Query.class)) {
+            return method.getAnnotation(com.ctp.cdi.query.Query.class).max();
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A extends Annotation> A extractFrom(Annotation[] annotations, Class<A> target) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType().isAssignableFrom(target)) {
+                return (A) annotation;
+            }
+        }
+        return null;
+    }
+
+}
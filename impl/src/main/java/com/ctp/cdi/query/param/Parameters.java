@@ -2,9 +2,6 @@ package com.ctp.cdi.query.param;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
 import javax.persistence.Query;
 
@@ -12,7 +9,6 @@ import org.jboss.solder.logging.Logger;
 
 import com.ctp.cdi.query.FirstResult;
 import com.ctp.cdi.query.MaxResults;
-import com.ctp.cdi.query.QueryParam;
 
 /**
  * Convenience class to manage method and query parameters.
@@ -25,46 +21,39 @@ public final class Parameters {
     private static final int DEFAULT_MAX = 0;
     private static final int DEFAULT_FIRST = -1;
 
-    private final List<Parameter> parameterList;
+    private final Parameter[] parameters;
+    private final Object[] values;
     private final int max;
     private final int firstResult;
 
-    private Parameters(List<Parameter> parameters, int max, int firstResult) {
-        this.parameterList = parameters;
+    private Parameters(Parameter[] parameters, Object[] values, int max, int firstResult) {
+        this.parameters = parameters;
+        this.values = values;
         this.max = max;
         this.firstResult = firstResult;
     }
 
     public static Parameters createEmpty() {
-        List<Parameter> empty = Collections.emptyList();
-        return new Parameters(empty, DEFAULT_MAX, DEFAULT_FIRST);
+        return new Parameters(new Parameter[0], new Object[0], DEFAULT_MAX, DEFAULT_FIRST);
     }
 
     public static Parameters create(Method method, Object[] parameters) {
-        int max = extractSizeRestriction(method);
-        int first = DEFAULT_FIRST;
-        List<Parameter> result = new ArrayList<Parameter>(parameters.length);
-        int paramIndex = 1;
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for (int i = 0; i < parameters.length; i++) {
-            if (isParameter(method.getParameterAnnotations()[i])) {
-                QueryParam qpAnnotation = extractFrom(annotations[i], QueryParam.class);
-                if (qpAnnotation != null) {
-                    result.add(new NamedParameter(qpAnnotation.value(), parameters[i], i));
-                } else {
-                    result.add(new IndexedParameter(paramIndex++, parameters[i], i));
-                }
-            } else {
-                max = extractInt(parameters[i], annotations[i], MaxResults.class, max);
-                first = extractInt(parameters[i], annotations[i], FirstResult.class, first);
-            }
-        }
-        return new Parameters(result, max, first);
+        return create(ParameterBinding.create(method), parameters);
+    }
+
+    /**
+     * Pairs a precomputed binding with the arguments of an invocation. The
+     * arguments array is referenced, not copied.
+     */
+    public static Parameters create(ParameterBinding binding, Object[] parameters) {
+        int max = extractInt(parameters, binding.getMaxSlot(), MaxResults.class, binding.getStaticMax());
+        int first = extractInt(parameters, binding.getFirstResultSlot(), FirstResult.class, DEFAULT_FIRST);
+        return new Parameters(binding.getParameters(), parameters, max, first);
     }
 
     public Query applyTo(Query query) {
-        for (Parameter param : parameterList) {
-            param.apply(query);
+        for (Parameter param : parameters) {
+            param.apply(query, values[param.argIndex]);
         }
         return query;
     }
@@ -85,42 +74,21 @@ public final class Parameters {
         return firstResult;
     }
 
-    private static int extractSizeRestriction(Method method) {
-        if (method.isAnnotationPresent(com.ctp.cdi.query.Query.class)) {
-            return method.getAnnotation(com.ctp.cdi.query.Query.class).max();
-        }
-        return 0;
-    }
-
-    @SuppressWarnings("unchecked")
-    private static <A extends Annotation> A extractFrom(Annotation[] annotations, Class<A> target) {
-        for (Annotation annotation : annotations) {
-            if (annotation.annotationType().isAssignableFrom(target)) {
-                return (A) annotation;
-            }
+    private static int extractInt(Object[] parameters, int slot, Class<? extends Annotation> target,
+            int defaultVal) {
+        if (slot == ParameterBinding.NO_SLOT) {
+            return defaultVal;
         }
-        return null;
-    }
-
-    private static <A extends Annotation> int extractInt(Object parameter, Annotation[] annotations,
-            Class<A> target, int defaultVal) {
+        Object parameter = parameters[slot];
         if (parameter != null) {
-            A result = extractFrom(annotations, target);
-            if (result != null) {
-                if (parameter instanceof Integer) {
-                    return (Integer) parameter;
-                } else {
-                    LOG.warnv("Method parameter extraction: Param type must be int: {0}->is:{1}",
-                            target, parameter.getClass());
-                }
+            if (parameter instanceof Integer) {
+                return (Integer) parameter;
+            } else {
+                LOG.warnv("Method parameter extraction: Param type must be int: {0}->is:{1}",
+                        target, parameter.getClass());
             }
         }
         return defaultVal;
     }
 
-    private static boolean isParameter(Annotation[] annotations) {
-        return extractFrom(annotations, MaxResults.class) == null &&
-               extractFrom(annotations, FirstResult.class) == null;
-    }
-
 }
@@ -0,0 +1,47 @@
+package com.ctp.cdi.query.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simple thread safe cache with a maximum size, evicting the least recently
+ * used entry when full.
+ *
+ * @param <K>   Key type.
+ * @param <V>   Value type.
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public LruCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.lang.reflect.Method;
+
+public abstract class BaseQueryStreamer implements QueryStreamer {
+
+    static Method method(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
+        try {
+            return clazz.getMethod(methodName, parameterTypes);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Object invoke(String methodName, Object target) {
+        return invoke(method(target.getClass(), methodName), target);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Read ahead, periodic persistence context clearing and close handling
+ * for cursors. Subclasses only move over the underlying result.
+ *
+ * @param <E>   Result type.
+ */
+public abstract class BaseResultCursor<E> implements ResultCursor<E> {
+
+    private final EntityManager entityManager;
+    private final int clearEvery;
+
+    private boolean fetched;
+    private boolean available;
+    private boolean iterated;
+    private boolean closed;
+    private int read;
+
+    protected BaseResultCursor(EntityManager entityManager, int clearEvery) {
+        this.entityManager = entityManager;
+        this.clearEvery = clearEvery;
+    }
+
+    /**
+     * Move to the next row.
+     * @return      False if there are no more rows.
+     */
+    protected abstract boolean advance();
+
+    /**
+     * @return      The row moved to with {@link #advance()}.
+     */
+    protected abstract Object current();
+
+    /**
+     * Release the underlying resources. Called once.
+     */
+    protected abstract void release();
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!fetched) {
+            if (clearEvery > 0 && read > 0 && read % clearEvery == 0) {
+                entityManager.clear();
+            }
+            available = advance();
+            fetched = true;
+            if (!available) {
+                close();
+            }
+        }
+        return available;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        read++;
+        return (E) current();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Cursors are read only");
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("A cursor can only be iterated once");
+        }
+        iterated = true;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            release();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.lang.reflect.Method;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Streams through an EclipseLink {@code CursoredStream}.
+ */
+@ProviderSpecific("org.eclipse.persistence.jpa.JpaQuery")
+public class EclipseLinkQueryStreamer extends BaseQueryStreamer {
+
+    private static final String CURSOR = "eclipselink.cursor";
+    private static final String PAGE_SIZE = "eclipselink.cursor.page-size";
+    private static final String FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+
+    @Override
+    public <E> ResultCursor<E> stream(Query query, EntityManager entityManager, int fetchSize, int clearEvery) {
+        query.setHint(CURSOR, Boolean.TRUE);
+        query.setHint(PAGE_SIZE, fetchSize);
+        query.setHint(FETCH_SIZE, fetchSize);
+        return new CursoredStreamCursor<E>(query.getSingleResult(), entityManager, clearEvery);
+    }
+
+    private static class CursoredStreamCursor<E> extends BaseResultCursor<E> {
+
+        private final Object stream;
+        private final Method hasNext;
+        private final Method next;
+        private final Method close;
+        private Object current;
+
+        CursoredStreamCursor(Object stream, EntityManager entityManager, int clearEvery) {
+            super(entityManager, clearEvery);
+            this.stream = stream;
+            this.hasNext = method(stream.getClass(), "hasNext");
+            this.next = method(stream.getClass(), "next");
+            this.close = method(stream.getClass(), "close");
+        }
+
+        @Override
+        protected boolean advance() {
+            if ((Boolean) invoke(hasNext, stream)) {
+                current = invoke(next, stream);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected Object current() {
+            return current;
+        }
+
+        @Override
+        protected void release() {
+            current = null;
+            invoke(close, stream);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.lang.reflect.Method;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Streams through forward only Hibernate {@code ScrollableResults}.
+ */
+@ProviderSpecific("org.hibernate.ejb.HibernateQuery")
+public class HibernateQueryStreamer extends BaseQueryStreamer {
+
+    @Override
+    public <E> ResultCursor<E> stream(Query query, EntityManager entityManager, int fetchSize, int clearEvery) {
+        Object hibernateQuery = invoke("getHibernateQuery", query);
+        Class<?> queryClass = hibernateQuery.getClass();
+        invoke(method(queryClass, "setFetchSize", int.class), hibernateQuery, fetchSize);
+        Object results = invoke(method(queryClass, "scroll", scrollModeClass(query)), hibernateQuery, forwardOnly(query));
+        return new ScrollableResultsCursor<E>(results, entityManager, clearEvery);
+    }
+
+    private Class<?> scrollModeClass(Query query) {
+        try {
+            return Class.forName("org.hibernate.ScrollMode", true, query.getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object forwardOnly(Query query) {
+        try {
+            return scrollModeClass(query).getField("FORWARD_ONLY").get(null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ScrollableResultsCursor<E> extends BaseResultCursor<E> {
+
+        private final Object results;
+        private final Method next;
+        private final Method get;
+        private final Method close;
+
+        ScrollableResultsCursor(Object results, EntityManager entityManager, int clearEvery) {
+            super(entityManager, clearEvery);
+            this.results = results;
+            this.next = method(results.getClass(), "next");
+            this.get = method(results.getClass(), "get");
+            this.close = method(results.getClass(), "close");
+        }
+
+        @Override
+        protected boolean advance() {
+            return (Boolean) invoke(next, results);
+        }
+
+        @Override
+        protected Object current() {
+            Object[] row = (Object[]) invoke(get, results);
+            return row.length == 1 ? row[0] : row;
+        }
+
+        @Override
+        protected void release() {
+            invoke(close, results);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Streams through an OpenJPA large result set, which loads the result
+ * list lazily when a fetch batch size is set.
+ */
+@ProviderSpecific("org.apache.openjpa.persistence.OpenJPAQuery")
+public class OpenJpaQueryStreamer extends BaseQueryStreamer {
+
+    private static final String FETCH_BATCH_SIZE = "openjpa.FetchPlan.FetchBatchSize";
+    private static final String PERSISTENCE = "org.apache.openjpa.persistence.OpenJPAPersistence";
+
+    @Override
+    public <E> ResultCursor<E> stream(Query query, EntityManager entityManager, int fetchSize, int clearEvery) {
+        query.setHint(FETCH_BATCH_SIZE, fetchSize);
+        List<?> result = query.getResultList();
+        return new LargeResultSetCursor<E>(result, closeMethod(query), entityManager, clearEvery);
+    }
+
+    private Method closeMethod(Query query) {
+        try {
+            Class<?> persistence = Class.forName(PERSISTENCE, true, query.getClass().getClassLoader());
+            return method(persistence, "close", Object.class);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class LargeResultSetCursor<E> extends BaseResultCursor<E> {
+
+        private final List<?> result;
+        private final Iterator<?> iterator;
+        private final Method close;
+        private Object current;
+
+        LargeResultSetCursor(List<?> result, Method close, EntityManager entityManager, int clearEvery) {
+            super(entityManager, clearEvery);
+            this.result = result;
+            this.iterator = result.iterator();
+            this.close = close;
+        }
+
+        @Override
+        protected boolean advance() {
+            if (iterator.hasNext()) {
+                current = iterator.next();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected Object current() {
+            return current;
+        }
+
+        @Override
+        protected void release() {
+            current = null;
+            invoke(close, null, result);
+        }
+    }
+
+}
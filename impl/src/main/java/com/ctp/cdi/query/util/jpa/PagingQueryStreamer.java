@@ -0,0 +1,78 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.ResultCursor;
+
+/**
+ * Fallback for providers without a supported cursor API: reads the result
+ * in pages of the fetch size. Only one page is held in memory, but the
+ * result is not read from a consistent snapshot.
+ */
+public class PagingQueryStreamer implements QueryStreamer {
+
+    @Override
+    public <E> ResultCursor<E> stream(Query query, EntityManager entityManager, int fetchSize, int clearEvery) {
+        return new PagingCursor<E>(query, fetchSize, entityManager, clearEvery);
+    }
+
+    private static class PagingCursor<E> extends BaseResultCursor<E> {
+
+        private final Query query;
+        private final int fetchSize;
+        private final int first;
+        private final int max;
+
+        private Iterator<?> page;
+        private int offset;
+        private boolean last;
+        private Object current;
+
+        PagingCursor(Query query, int fetchSize, EntityManager entityManager, int clearEvery) {
+            super(entityManager, clearEvery);
+            this.query = query;
+            this.fetchSize = fetchSize;
+            this.first = query.getFirstResult();
+            this.max = query.getMaxResults();
+        }
+
+        @Override
+        protected boolean advance() {
+            if ((page == null || !page.hasNext()) && !fetchPage()) {
+                return false;
+            }
+            current = page.next();
+            return true;
+        }
+
+        private boolean fetchPage() {
+            if (last || offset >= max) {
+                return false;
+            }
+            int size = Math.min(fetchSize, max - offset);
+            query.setFirstResult(first + offset);
+            query.setMaxResults(size);
+            List<?> rows = query.getResultList();
+            offset += rows.size();
+            last = rows.size() < size;
+            page = rows.iterator();
+            return page.hasNext();
+        }
+
+        @Override
+        protected Object current() {
+            return current;
+        }
+
+        @Override
+        protected void release() {
+            current = null;
+            page = null;
+        }
+    }
+
+}
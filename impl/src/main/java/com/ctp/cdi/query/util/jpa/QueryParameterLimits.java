@@ -0,0 +1,54 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Number of bind parameters a single query can safely use, derived from the
+ * database configured for the persistence unit.
+ */
+public final class QueryParameterLimits {
+
+    public static final int DEFAULT_LIMIT = 1000;
+
+    private static final String[] DATABASE_PROPERTIES = {
+        "hibernate.dialect", "eclipselink.target-database", "openjpa.jdbc.DBDictionary"
+    };
+
+    private QueryParameterLimits() {
+    }
+
+    /**
+     * Oracle limits IN lists to 1000 expressions, SQL Server and Sybase allow about 2100
+     * parameters per statement. Unknown databases get the Oracle limit.
+     */
+    public static int maxParameters(EntityManagerFactory factory) {
+        String database = database(factory).toLowerCase(Locale.ENGLISH);
+        if (database.contains("sqlserver") || database.contains("sybase")) {
+            return 2000;
+        }
+        if (database.contains("postgres") || database.contains("mysql") || database.contains("h2")
+                || database.contains("hsql")) {
+            return 5000;
+        }
+        return DEFAULT_LIMIT;
+    }
+
+    private static String database(EntityManagerFactory factory) {
+        try {
+            Map<String, Object> properties = factory.getProperties();
+            for (String property : DATABASE_PROPERTIES) {
+                Object value = properties.get(property);
+                if (value != null) {
+                    return value.toString();
+                }
+            }
+        } catch (RuntimeException e) {
+            // properties not available
+        }
+        return "";
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.ctp.cdi.query.util.jpa;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.ctp.cdi.query.ResultCursor;
+
+public interface QueryStreamer {
+
+    <E> ResultCursor<E> stream(Query query, EntityManager entityManager, int fetchSize, int clearEvery);
+
+}
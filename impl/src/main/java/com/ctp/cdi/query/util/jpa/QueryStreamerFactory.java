@@ -0,0 +1,70 @@
+package com.ctp.cdi.query.util.jpa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+/**
+ * Selects the query streamer of the persistence provider. The provider is detected
+ * once per entity manager factory. Provider classes are resolved through the class
+ * loader of the query, which also sees them when the provider is not visible to
+ * this module.
+ */
+public final class QueryStreamerFactory {
+
+    private static final QueryStreamerFactory INSTANCE = new QueryStreamerFactory();
+
+    private final List<QueryStreamer> streamers = Arrays.<QueryStreamer>asList(
+            new HibernateQueryStreamer(),
+            new EclipseLinkQueryStreamer(),
+            new OpenJpaQueryStreamer());
+
+    private final QueryStreamer fallback = new PagingQueryStreamer();
+
+    private final Map<EntityManagerFactory, QueryStreamer> providers =
+            Collections.synchronizedMap(new WeakHashMap<EntityManagerFactory, QueryStreamer>());
+
+    private QueryStreamerFactory() {
+    }
+
+    public static QueryStreamerFactory instance() {
+        return INSTANCE;
+    }
+
+    public QueryStreamer select(EntityManager entityManager, Query query) {
+        EntityManagerFactory factory = entityManager.getEntityManagerFactory();
+        QueryStreamer result = providers.get(factory);
+        if (result == null) {
+            result = detect(query);
+            providers.put(factory, result);
+        }
+        return result;
+    }
+
+    private QueryStreamer detect(Query query) {
+        for (QueryStreamer streamer : streamers) {
+            String compare = streamer.getClass().getAnnotation(ProviderSpecific.class).value();
+            if (isQueryClass(compare, query)) {
+                return streamer;
+            }
+        }
+        return fallback;
+    }
+
+    private boolean isQueryClass(String clazzName, Query query) {
+        try {
+            return Class.forName(clazzName, false, query.getClass().getClassLoader()).isInstance(query);
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+}
@@ -1,18 +1,81 @@
 package com.ctp.cdi.query.util.jpa;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.Query;
 
-public class QueryStringExtractorFactory {
+/**
+ * Selects the query string extractor of the persistence provider. The provider is
+ * detected once per entity manager factory, and the query strings of named queries
+ * are kept per factory, as they do not change while the factory is open.
+ */
+public final class QueryStringExtractorFactory {
+
+    private static final QueryStringExtractorFactory INSTANCE = new QueryStringExtractorFactory();
 
     private final List<QueryStringExtractor> extractors = Arrays.<QueryStringExtractor>asList(
             new HibernateQueryStringExtractor(),
             new EclipseLinkEjbQueryStringExtractor(),
             new OpenJpaQueryStringExtractor());
 
-    public QueryStringExtractor select(Query query) {
+    private final Map<EntityManagerFactory, ProviderQueries> providers =
+            Collections.synchronizedMap(new WeakHashMap<EntityManagerFactory, ProviderQueries>());
+
+    private QueryStringExtractorFactory() {
+    }
+
+    public static QueryStringExtractorFactory instance() {
+        return INSTANCE;
+    }
+
+    public QueryStringExtractor select(EntityManager entityManager, Query query) {
+        ProviderQueries provider = provider(entityManager);
+        QueryStringExtractor result = provider.extractor;
+        if (result == null) {
+            result = detect(query);
+            provider.extractor = result;
+        }
+        return result;
+    }
+
+    public String extractFrom(EntityManager entityManager, Query query) {
+        return select(entityManager, query).extractFrom(query);
+    }
+
+    /**
+     * @return  The query string of the named query, extracted on first use.
+     */
+    public String extractNamed(EntityManager entityManager, String name) {
+        ProviderQueries provider = provider(entityManager);
+        String result = provider.namedQueries.get(name);
+        if (result == null) {
+            result = extractFrom(entityManager, entityManager.createNamedQuery(name));
+            provider.namedQueries.putIfAbsent(name, result);
+        }
+        return result;
+    }
+
+    private ProviderQueries provider(EntityManager entityManager) {
+        EntityManagerFactory factory = entityManager.getEntityManagerFactory();
+        synchronized (providers) {
+            ProviderQueries result = providers.get(factory);
+            if (result == null) {
+                result = new ProviderQueries();
+                providers.put(factory, result);
+            }
+            return result;
+        }
+    }
+
+    private QueryStringExtractor detect(Query query) {
         for (QueryStringExtractor extractor : extractors) {
             String compare = extractor.getClass().getAnnotation(ProviderSpecific.class).value();
             if (isQueryClass(compare, query)) {
@@ -31,5 +94,10 @@ public class QueryStringExtractorFactory {
             return false;
         }
     }
+
+    private static class ProviderQueries {
+        private volatile QueryStringExtractor extractor;
+        private final ConcurrentMap<String, String> namedQueries = new ConcurrentHashMap<String, String>();
+    }
     
 }
@@ -0,0 +1,546 @@
+package com.ctp.cdi.query.util.jpql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural view of a JPQL statement. The query string is tokenized once,
+ * skipping string literals and keeping track of parenthesis depth, so that
+ * subqueries and keywords within identifiers or literals do not confuse the
+ * clause detection. Offsets of the top level clauses are kept, which allows
+ * rewriting the query by copying the original text around them.
+ */
+public final class JpqlQuery {
+
+    private static final int NONE = -1;
+
+    private final String query;
+    private final List<Token> tokens;
+
+    private int select = NONE;
+    private int from = NONE;
+    private int where = NONE;
+    private int groupBy = NONE;
+    private int having = NONE;
+    private int orderBy = NONE;
+
+    private boolean distinct;
+    private String rootEntity;
+    private String rootAlias;
+    private final List<FetchJoin> fetchJoins = new ArrayList<FetchJoin>();
+
+    private JpqlQuery(String query) {
+        this.query = query;
+        this.tokens = tokenize();
+        findClauses();
+        parseSelect();
+        parseFrom();
+    }
+
+    public static JpqlQuery parse(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query must not be null");
+        }
+        return new JpqlQuery(query);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean hasSelect() {
+        return select != NONE;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public boolean hasWhere() {
+        return where != NONE;
+    }
+
+    public boolean hasGroupBy() {
+        return groupBy != NONE;
+    }
+
+    public boolean hasOrderBy() {
+        return orderBy != NONE;
+    }
+
+    public boolean hasFetchJoins() {
+        return !fetchJoins.isEmpty();
+    }
+
+    public String getRootEntity() {
+        return rootEntity;
+    }
+
+    /**
+     * Identification variable of the first range variable declaration, or
+     * {@code null} if the query does not declare one.
+     */
+    public String getRootAlias() {
+        return rootAlias;
+    }
+
+    /**
+     * Offset in the query string directly behind the last declaration of the
+     * from clause.
+     */
+    public int getFromEnd() {
+        return startOf(firstOf(where, groupBy, having, orderBy));
+    }
+
+    /**
+     * Offset in the query string of the top level order by clause, or the
+     * query length if there is none.
+     */
+    public int getOrderByStart() {
+        return startOf(orderBy);
+    }
+
+    /**
+     * The query without its top level order by clause.
+     */
+    public String withoutOrderBy() {
+        return query.substring(0, getOrderByStart()).trim();
+    }
+
+    /**
+     * Rewrites the query to count its results. The order by clause is dropped.
+     * Fetch joins only affect what is loaded, so they are removed, or turned
+     * into plain joins if declared with an inner join or an identification
+     * variable which might be referenced in the remaining query. In this case
+     * distinct root entities are counted. Queries with a distinct projection
+     * count the distinct values.
+     *
+     * @throws UnsupportedOperationException    For grouped queries and queries
+     *                                          selecting several distinct values,
+     *                                          which cannot be counted without a
+     *                                          subquery in the from clause.
+     */
+    public String toCountQuery() {
+        if (hasGroupBy()) {
+            throw new UnsupportedOperationException("Cannot derive a count query from a grouped query: " + query);
+        }
+        if (from == NONE) {
+            throw new IllegalArgumentException("Query has no from clause: " + query);
+        }
+        if (distinct && !isSingleExpression(projection())) {
+            throw new UnsupportedOperationException("Cannot derive a count query from a query selecting " +
+                    "several distinct values: " + query);
+        }
+        StringBuilder result = new StringBuilder(query.length() + 16);
+        result.append("select count(").append(countExpression()).append(") ");
+        appendFrom(result);
+        int end = getOrderByStart();
+        int restStart = getFromEnd();
+        if (restStart < end) {
+            result.append(" ").append(query, restStart, end);
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * Highest position of the positional parameters in the query, or 0 if the
+     * query does not use positional parameters.
+     */
+    public int getMaxPosition() {
+        int result = 0;
+        for (Token token : tokens) {
+            if (token.type == TokenType.PARAMETER && query.charAt(token.start) == '?') {
+                try {
+                    result = Math.max(result, Integer.parseInt(query.substring(token.start + 1, token.end)));
+                } catch (NumberFormatException e) {
+                    // not a positional parameter
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a condition to the top level where clause. Existing conditions are
+     * put in parenthesis and combined with {@code and}. Queries without where
+     * clause get one in front of a group by, having or order by clause.
+     *
+     * @param condition         Condition to add, used as is.
+     * @throws IllegalArgumentException If the query has no from clause.
+     */
+    public String withRestriction(String condition) {
+        if (from == NONE) {
+            throw new IllegalArgumentException("Query has no from clause: " + query);
+        }
+        int end = startOf(firstOf(groupBy, having, orderBy));
+        StringBuilder result = new StringBuilder(query.length() + condition.length() + 16);
+        if (hasWhere()) {
+            int conditionsStart = tokens.get(where).end;
+            result.append(query, 0, conditionsStart)
+                  .append(" (").append(query.substring(conditionsStart, end).trim()).append(") and ");
+        } else {
+            result.append(query, 0, end);
+            trimTrailing(result);
+            result.append(" where ");
+        }
+        result.append(condition);
+        if (end < query.length()) {
+            result.append(" ").append(query, end, query.length());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Adds a left join fetch for each of the given attributes of the root entity
+     * behind the from clause. Attributes already fetched are skipped.
+     *
+     * @param attributes        Attribute names of the root entity.
+     * @param distinct          Whether to select distinct results, which is needed
+     *                          to not repeat the root entity for fetched collections.
+     * @throws IllegalArgumentException If the root entity has no identification variable.
+     */
+    public String withFetchJoins(List<String> attributes, boolean distinct) {
+        if (rootAlias == null) {
+            throw new IllegalArgumentException("Query root needs an identification variable to fetch joins: " + query);
+        }
+        int fromEnd = getFromEnd();
+        StringBuilder result = new StringBuilder(query.length() + 32 * attributes.size());
+        if (distinct && !this.distinct) {
+            if (hasSelect()) {
+                int selectEnd = tokens.get(select).end;
+                result.append(query, 0, selectEnd).append(" distinct").append(query, selectEnd, fromEnd);
+            } else {
+                result.append("select distinct ").append(rootAlias).append(" ").append(query, 0, fromEnd);
+            }
+        } else {
+            result.append(query, 0, fromEnd);
+        }
+        trimTrailing(result);
+        for (String attribute : attributes) {
+            String path = rootAlias + "." + attribute;
+            if (!isFetched(path)) {
+                result.append(" left join fetch ").append(path);
+            }
+        }
+        if (fromEnd < query.length()) {
+            result.append(" ").append(query, fromEnd, query.length());
+        }
+        return result.toString();
+    }
+
+    private boolean isFetched(String path) {
+        for (FetchJoin join : fetchJoins) {
+            if (join.path.equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String countExpression() {
+        String root = rootAlias != null ? rootAlias : rootEntity;
+        boolean keptFetchJoins = false;
+        for (FetchJoin join : fetchJoins) {
+            keptFetchJoins |= join.isKept();
+        }
+        if (!hasSelect()) {
+            return keptFetchJoins ? "distinct " + root : root;
+        }
+        String projection = projection();
+        boolean single = isSingleExpression(projection);
+        if (distinct) {
+            return "distinct " + projection;
+        }
+        if (keptFetchJoins) {
+            return "distinct " + root;
+        }
+        return single ? projection : root;
+    }
+
+    private String projection() {
+        int start = tokens.get(select).end;
+        if (distinct) {
+            start = tokens.get(select + 1).end;
+        }
+        return query.substring(start, tokens.get(from).start).trim();
+    }
+
+    private boolean isSingleExpression(String projection) {
+        if (projection.length() == 0 || projection.regionMatches(true, 0, "new ", 0, 4)) {
+            return false;
+        }
+        for (int i = 0; i < projection.length(); i++) {
+            char c = projection.charAt(i);
+            if (c == ',' || c == '(' || Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendFrom(StringBuilder result) {
+        int position = tokens.get(from).start;
+        for (FetchJoin join : fetchJoins) {
+            result.append(query, position, join.start);
+            if (join.isKept()) {
+                result.append(join.inner ? "join" : "left join");
+                result.append(query, join.fetchEnd, join.end);
+            } else {
+                trimTrailing(result);
+            }
+            position = join.end;
+        }
+        result.append(query, position, getFromEnd());
+        trimTrailing(result);
+    }
+
+    private void trimTrailing(StringBuilder result) {
+        int length = result.length();
+        while (length > 0 && Character.isWhitespace(result.charAt(length - 1))) {
+            length--;
+        }
+        result.setLength(length);
+    }
+
+    // ------------------------------------------------------------------------
+    // clause detection
+    // ------------------------------------------------------------------------
+
+    private void findClauses() {
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.depth > 0 || token.type != TokenType.WORD) {
+                continue;
+            }
+            if (select == NONE && from == NONE && token.is("select")) {
+                select = i;
+            } else if (from == NONE && token.is("from")) {
+                from = i;
+            } else if (from != NONE && where == NONE && token.is("where")) {
+                where = i;
+            } else if (from != NONE && groupBy == NONE && token.is("group") && isFollowedByBy(i)) {
+                groupBy = i;
+            } else if (from != NONE && having == NONE && token.is("having")) {
+                having = i;
+            } else if (from != NONE && orderBy == NONE && token.is("order") && isFollowedByBy(i)) {
+                orderBy = i;
+            }
+        }
+    }
+
+    private boolean isFollowedByBy(int index) {
+        return index + 1 < tokens.size() && tokens.get(index + 1).is("by");
+    }
+
+    private void parseSelect() {
+        if (select != NONE && select + 1 < tokens.size()) {
+            distinct = tokens.get(select + 1).is("distinct");
+        }
+    }
+
+    private void parseFrom() {
+        if (from == NONE) {
+            return;
+        }
+        int end = firstOf(where, groupBy, having, orderBy);
+        if (end == NONE) {
+            end = tokens.size();
+        }
+        int index = from + 1;
+        if (index < end && tokens.get(index).type == TokenType.WORD) {
+            rootEntity = tokens.get(index).text();
+            index++;
+            if (index < end && tokens.get(index).is("as")) {
+                index++;
+            }
+            if (index < end && isIdentificationVariable(tokens.get(index))) {
+                rootAlias = tokens.get(index).text();
+            }
+        }
+        for (int i = index; i < end; i++) {
+            if (tokens.get(i).depth == 0 && tokens.get(i).is("join")) {
+                parseFetchJoin(i, end);
+            }
+        }
+    }
+
+    private void parseFetchJoin(int joinIndex, int end) {
+        if (joinIndex + 1 >= end || !tokens.get(joinIndex + 1).is("fetch")) {
+            return;
+        }
+        int start = joinIndex;
+        boolean inner = true;
+        if (start > 0 && tokens.get(start - 1).is("inner")) {
+            start--;
+        } else {
+            if (start > 0 && tokens.get(start - 1).is("outer")) {
+                start--;
+            }
+            if (start > 0 && tokens.get(start - 1).is("left")) {
+                start--;
+                inner = false;
+            }
+        }
+        int index = joinIndex + 2;
+        if (index >= end) {
+            return;
+        }
+        index++;
+        boolean aliased = false;
+        if (index < end && tokens.get(index).is("as")) {
+            index++;
+        }
+        if (index < end && isIdentificationVariable(tokens.get(index))) {
+            aliased = true;
+            index++;
+        }
+        fetchJoins.add(new FetchJoin(tokens.get(joinIndex + 2).text(), tokens.get(start).start,
+                tokens.get(joinIndex + 1).end, tokens.get(index - 1).end, inner, aliased));
+    }
+
+    private boolean isIdentificationVariable(Token token) {
+        if (token.type != TokenType.WORD || token.text().indexOf('.') >= 0) {
+            return false;
+        }
+        for (String keyword : RESERVED_IN_FROM) {
+            if (token.is(keyword)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int firstOf(int... clauses) {
+        int result = NONE;
+        for (int clause : clauses) {
+            if (clause != NONE && (result == NONE || clause < result)) {
+                result = clause;
+            }
+        }
+        return result;
+    }
+
+    private int startOf(int clause) {
+        return clause == NONE ? query.length() : tokens.get(clause).start;
+    }
+
+    private static final String[] RESERVED_IN_FROM = {
+        "join", "left", "outer", "inner", "fetch", "where", "group", "having", "order", "in"
+    };
+
+    // ------------------------------------------------------------------------
+    // tokenizer
+    // ------------------------------------------------------------------------
+
+    private List<Token> tokenize() {
+        List<Token> result = new ArrayList<Token>();
+        int depth = 0;
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                int end = skipLiteral(query, i);
+                result.add(new Token(TokenType.LITERAL, i, end, depth));
+                i = end;
+            } else if (isWordPart(c)) {
+                int end = i + 1;
+                while (end < length && isWordPart(query.charAt(end))) {
+                    end++;
+                }
+                result.add(new Token(TokenType.WORD, i, end, depth));
+                i = end;
+            } else if ((c == ':' || c == '?') && i + 1 < length && isWordPart(query.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && isWordPart(query.charAt(end))) {
+                    end++;
+                }
+                result.add(new Token(TokenType.PARAMETER, i, end, depth));
+                i = end;
+            } else {
+                if (c == ')') {
+                    depth = Math.max(0, depth - 1);
+                }
+                result.add(new Token(TokenType.SYMBOL, i, i + 1, depth));
+                if (c == '(') {
+                    depth++;
+                }
+                i++;
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static int skipLiteral(String query, int start) {
+        int i = start + 1;
+        while (i < query.length()) {
+            if (query.charAt(i) == '\'') {
+                if (i + 1 < query.length() && query.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return query.length();
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isJavaIdentifierPart(c) || c == '.';
+    }
+
+    private static enum TokenType {
+        WORD, LITERAL, PARAMETER, SYMBOL
+    }
+
+    private final class Token {
+
+        private final TokenType type;
+        private final int start;
+        private final int end;
+        private final int depth;
+
+        Token(TokenType type, int start, int end, int depth) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+        }
+
+        boolean is(String keyword) {
+            return type == TokenType.WORD && end - start == keyword.length()
+                    && query.regionMatches(true, start, keyword, 0, keyword.length());
+        }
+
+        String text() {
+            return query.substring(start, end);
+        }
+    }
+
+    private static final class FetchJoin {
+
+        private final String path;
+        private final int start;
+        private final int fetchEnd;
+        private final int end;
+        private final boolean inner;
+        private final boolean aliased;
+
+        FetchJoin(String path, int start, int fetchEnd, int end, boolean inner, boolean aliased) {
+            this.path = path;
+            this.start = start;
+            this.fetchEnd = fetchEnd;
+            this.end = end;
+            this.inner = inner;
+            this.aliased = aliased;
+        }
+
+        boolean isKept() {
+            return inner || aliased;
+        }
+    }
+}
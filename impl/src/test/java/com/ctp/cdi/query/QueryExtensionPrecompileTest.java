@@ -0,0 +1,68 @@
+package com.ctp.cdi.query;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.util.AnnotationLiteral;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.ctp.cdi.query.test.domain.Simple;
+import com.ctp.cdi.query.test.service.SimpleDao;
+import com.ctp.cdi.query.test.service.Simplistic;
+import com.ctp.cdi.query.test.util.TestDeployments;
+
+@RunWith(Arquillian.class)
+public class QueryExtensionPrecompileTest {
+
+    @Deployment
+    public static Archive<?> deployment() {
+        return TestDeployments.initDeployment()
+                .addClasses(SimpleDao.class, Simplistic.class)
+                .addPackage(Simple.class.getPackage());
+    }
+
+    @Produces
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private BeanManager beanManager;
+
+    @Test
+    public void should_resolve_factory_of_dependent_entity_manager() {
+        // when
+        Object factory = new QueryExtension().lookupFactory(beanManager, Collections.<Annotation>emptyList());
+
+        // then
+        assertNotNull(factory);
+    }
+
+    @Test
+    public void should_skip_unresolved_entity_manager() {
+        // given
+        Annotation qualifier = new AnnotationLiteral<Simplistic>() {
+            private static final long serialVersionUID = 1L;
+        };
+
+        // when
+        Object factory = new QueryExtension().lookupFactory(beanManager, Arrays.asList(qualifier));
+
+        // then
+        assertNull(factory);
+    }
+
+}
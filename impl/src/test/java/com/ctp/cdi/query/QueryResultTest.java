@@ -195,6 +195,115 @@ public class QueryResultTest extends TransactionalTestCase {
         
     }
     
+    @Test
+    public void should_fetch_page_with_total() {
+        // given
+        final String name = "testPageWithTotal";
+        builder.createSimple(name, Integer.valueOf(22));
+        builder.createSimple(name, Integer.valueOf(56));
+        builder.createSimple(name, Integer.valueOf(99));
+        builder.createSimple(name, Integer.valueOf(123));
+        builder.createSimple(name, Integer.valueOf(229));
+        
+        // when
+        QueryResult<Simple> pagedQuery = dao
+                .findByName(name)
+                .orderAsc(Simple_.counter)
+                .withPageSize(2);
+        Page<Simple> first = pagedQuery.getPage();
+        Page<Simple> last = pagedQuery.toPage(2).getPage();
+        Page<Simple> beyond = pagedQuery.toPage(3).getPage();
+        
+        // then
+        assertEquals(2, first.getItems().size());
+        assertEquals(5L, first.getTotal());
+        assertEquals(3, first.getPageCount());
+        assertTrue(first.hasNext());
+        
+        assertEquals(1, last.getItems().size());
+        assertEquals(229, last.getItems().get(0).getCounter().intValue());
+        assertEquals(5L, last.getTotal());
+        assertEquals(2, last.getNumber());
+        assertFalse(last.hasNext());
+        
+        assertTrue(beyond.getItems().isEmpty());
+        assertEquals(5L, beyond.getTotal());
+    }
+    
+    @Test
+    public void should_count_page_of_limited_method() {
+        // given
+        final String name = "testPageOfLimitedMethod";
+        builder.createSimple(name, Integer.valueOf(22));
+        builder.createSimple(name, Integer.valueOf(56));
+        builder.createSimple(name, Integer.valueOf(99));
+        
+        // when
+        Page<Simple> page = dao.queryResultLimited(name).getPage();
+        
+        // then
+        assertEquals(2, page.getItems().size());
+        assertEquals(3L, page.getTotal());
+        assertEquals(2, page.getSize());
+        assertTrue(page.hasNext());
+    }
+    
+    @Test
+    public void should_page_with_keyset() {
+        // given
+        final String name = "testPageKeyset";
+        builder.createSimple(name, Integer.valueOf(22));
+        builder.createSimple(name, Integer.valueOf(56));
+        builder.createSimple(name, Integer.valueOf(56));
+        builder.createSimple(name, Integer.valueOf(99));
+        builder.createSimple(name, Integer.valueOf(123));
+        
+        // when
+        QueryResult<Simple> pagedQuery = dao
+                .findByName(name)
+                .orderAsc(Simple_.counter)
+                .orderAsc(Simple_.id)
+                .withPageSize(2)
+                .keyset();
+        List<Simple> result1 = pagedQuery.getResultList();
+        List<Simple> result2 = pagedQuery.nextPage().getResultList();
+        List<Simple> result3 = pagedQuery.nextPage().getResultList();
+        long count = pagedQuery.count();
+        
+        // then
+        assertEquals(2, result1.size());
+        assertEquals(2, result2.size());
+        assertEquals(1, result3.size());
+        assertEquals(5L, count);
+        assertEquals(2, pagedQuery.currentPage());
+        
+        assertEquals(22, result1.get(0).getCounter().intValue());
+        assertEquals(56, result1.get(1).getCounter().intValue());
+        assertEquals(56, result2.get(0).getCounter().intValue());
+        assertEquals(99, result2.get(1).getCounter().intValue());
+        assertEquals(123, result3.get(0).getCounter().intValue());
+    }
+    
+    @Test
+    public void should_restrict_after_key() {
+        // given
+        final String name = "testAfterKey";
+        builder.createSimple(name, Integer.valueOf(22));
+        builder.createSimple(name, Integer.valueOf(56));
+        builder.createSimple(name, Integer.valueOf(99));
+        
+        // when
+        List<Simple> result = dao.findByName(name)
+                .orderDesc(Simple_.counter)
+                .afterKey(Integer.valueOf(99))
+                .getResultList();
+        
+        // then
+        assertEquals(2, result.size());
+        assertEquals(56, result.get(0).getCounter().intValue());
+        assertEquals(22, result.get(1).getCounter().intValue());
+    }
+    
     @Test
     public void should_modify_named_query() {
         // given
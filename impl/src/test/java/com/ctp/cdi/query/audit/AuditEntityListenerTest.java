@@ -4,6 +4,8 @@ import static com.ctp.cdi.query.test.util.TestDeployments.initDeployment;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.enterprise.inject.Produces;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -30,11 +32,14 @@ public class AuditEntityListenerTest extends TransactionalTestCase {
     @PersistenceContext
     private EntityManager entityManager;
     
+    private static final AtomicInteger whoLookups = new AtomicInteger();
+
     private final String who = "test999";
     private Principal principal = new Principal(who);
     
     @Produces @CurrentUser
     public String who() {
+        whoLookups.incrementAndGet();
         return who;
     }
     
@@ -95,6 +100,24 @@ public class AuditEntityListenerTest extends TransactionalTestCase {
         assertEquals(who, entity.getPrincipal().getName());
     }
 
+    @Test
+    public void should_resolve_principal_once_per_transaction() {
+        // given
+        AuditedEntity first = new AuditedEntity();
+        AuditedEntity second = new AuditedEntity();
+        int lookups = whoLookups.get();
+        
+        // when
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.flush();
+        
+        // then
+        assertEquals(who, first.getChanger());
+        assertEquals(who, second.getChanger());
+        assertEquals(lookups + 1, whoLookups.get());
+    }
+
     @Override
     protected EntityManager getEntityManager() {
         return entityManager;
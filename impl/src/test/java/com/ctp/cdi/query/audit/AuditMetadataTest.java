@@ -0,0 +1,46 @@
+package com.ctp.cdi.query.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ctp.cdi.query.test.domain.AuditedEntity;
+import com.ctp.cdi.query.test.domain.Simple;
+
+public class AuditMetadataTest {
+
+    private final AuditMetadataCache cache = new AuditMetadataCache();
+
+    @Test
+    public void should_collect_audited_properties_once() {
+        // given
+        AuditMetadata metadata = cache.of(AuditedEntity.class);
+
+        // when
+        AuditMetadata cached = cache.of(AuditedEntity.class);
+
+        // then
+        assertSame(metadata, cached);
+        assertEquals(2, metadata.getCreateTimestamps().size());
+        assertEquals(3, metadata.getUpdateTimestamps().size());
+        assertEquals(2, metadata.getPrincipals().size());
+    }
+
+    @Test
+    public void should_share_metadata_of_non_audited_entities() {
+        // given
+        AuditMetadata metadata = cache.of(Simple.class);
+
+        // when
+        AuditMetadata other = cache.of(Object.class);
+
+        // then
+        assertSame(metadata, other);
+        assertTrue(metadata.getCreateTimestamps().isEmpty());
+        assertTrue(metadata.getUpdateTimestamps().isEmpty());
+        assertTrue(metadata.getPrincipals().isEmpty());
+    }
+
+}
@@ -17,7 +17,7 @@ public class TimestampsProviderTest {
         AuditedEntity entity = new AuditedEntity();
         
         // when
-        new TimestampsProvider().prePersist(entity);
+        new TimestampsProvider(new AuditMetadataCache()).prePersist(entity);
         
         // then
         assertNotNull(entity.getCreated());
@@ -32,7 +32,7 @@ public class TimestampsProviderTest {
         AuditedEntity entity = new AuditedEntity();
         
         // when
-        new TimestampsProvider().preUpdate(entity);
+        new TimestampsProvider(new AuditMetadataCache()).preUpdate(entity);
         
         // then
         assertNull(entity.getCreated());
@@ -47,7 +47,7 @@ public class TimestampsProviderTest {
         Simple entity = new Simple();
         
         // when
-        TimestampsProvider provider = new TimestampsProvider();
+        TimestampsProvider provider = new TimestampsProvider(new AuditMetadataCache());
         provider.prePersist(entity);
         provider.preUpdate(entity);
         
@@ -60,7 +60,7 @@ public class TimestampsProviderTest {
         InvalidEntity entity = new InvalidEntity();
         
         // when
-        new TimestampsProvider().prePersist(entity);
+        new TimestampsProvider(new AuditMetadataCache()).prePersist(entity);
         
         // then
         fail();
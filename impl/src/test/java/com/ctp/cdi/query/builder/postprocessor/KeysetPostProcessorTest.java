@@ -0,0 +1,60 @@
+package com.ctp.cdi.query.builder.postprocessor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ctp.cdi.query.builder.OrderDirection;
+import com.ctp.cdi.query.handler.QueryStringPostProcessor;
+
+public class KeysetPostProcessorTest {
+
+    @Test
+    public void should_restrict_top_level_where_clause() {
+        // given
+        KeysetPostProcessor keyset = new KeysetPostProcessor(
+                orderBy("counter", OrderDirection.ASC, "id", OrderDirection.DESC), new Object[] { 1, 2L });
+
+        // when
+        String result = keyset.postProcess("select e from Simple e where e.name = 'a where b' " +
+                "or e.id in (select s.id from Simple s where s.enabled = true order by s.id) order by e.counter");
+
+        // then
+        assertEquals("select e from Simple e where (e.name = 'a where b' " +
+                "or e.id in (select s.id from Simple s where s.enabled = true order by s.id)) " +
+                "and ((e.counter > :keyset0) or (e.counter = :keyset0 and e.id < :keyset1)) order by e.counter",
+                result);
+    }
+
+    @Test
+    public void should_add_where_clause_before_group_by() {
+        // given
+        KeysetPostProcessor keyset = new KeysetPostProcessor(orderBy("name", OrderDirection.ASC), new Object[] { "a" });
+
+        // when
+        String result = keyset.postProcess("select e.name, count(e) from Simple e group by e.name having count(e) > ?1");
+
+        // then
+        assertEquals("select e.name, count(e) from Simple e where ((e.name > ?2)) " +
+                "group by e.name having count(e) > ?1", result);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_reject_query_without_ordering() {
+        new KeysetPostProcessor(new ArrayList<QueryStringPostProcessor>(), new Object[0])
+                .postProcess("select e from Simple e");
+    }
+
+    private List<QueryStringPostProcessor> orderBy(Object... attributesAndDirections) {
+        List<QueryStringPostProcessor> result = new ArrayList<QueryStringPostProcessor>();
+        for (int i = 0; i < attributesAndDirections.length; i += 2) {
+            result.add(new OrderByQueryStringPostProcessor((String) attributesAndDirections[i],
+                    (OrderDirection) attributesAndDirections[i + 1]));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.ctp.cdi.query.builder.result;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.ctp.cdi.query.test.domain.Simple;
+
+public class ProjectionTest {
+
+    @Test
+    public void should_accept_boxed_and_supertype_properties() {
+        // when
+        Projection projection = Projection.of(WideSummary.class, Simple.class);
+
+        // then
+        assertEquals("e.counter, e.name", projection.getSelection("e"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_reject_property_of_other_type() {
+        Projection.of(MismatchedSummary.class, Simple.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_reject_getter_of_other_type() {
+        Projection.of(MismatchedView.class, Simple.class);
+    }
+
+    static class WideSummary {
+        private int counter;
+        private CharSequence name;
+    }
+
+    static class MismatchedSummary {
+        private Long counter;
+    }
+
+    interface MismatchedView {
+        Long getCounter();
+    }
+
+}
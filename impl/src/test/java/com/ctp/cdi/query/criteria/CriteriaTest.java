@@ -1,6 +1,7 @@
 package com.ctp.cdi.query.criteria;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -120,6 +121,80 @@ public class CriteriaTest extends TransactionalTestCase {
         assertEquals(2, result.size());
     }
 
+    @Test
+    public void should_execute_compiled_criteria_with_new_values() {
+        // given
+        final String name = "testExecuteCompiledCriteria";
+        createSimple(name, 10);
+        createSimple(name, 20);
+        createSimple(name, 30);
+        CompiledCriteria<Simple> compiled = dao.compiledQueryByCriteria(name, 0, 15);
+
+        // when
+        List<Simple> result1 = compiled.getResultList();
+        List<Simple> result2 = compiled.getResultList(name, 15, 35);
+        List<Simple> result3 = compiled.getResultList(name + "-other", 0, 100);
+
+        // then
+        assertEquals(3, compiled.getParameterCount());
+        assertEquals(1, result1.size());
+        assertEquals(Integer.valueOf(10), result1.get(0).getCounter());
+        assertEquals(2, result2.size());
+        assertEquals(0, result3.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_fail_compiled_criteria_with_wrong_value_count() {
+        // given
+        CompiledCriteria<Simple> compiled = dao.compiledQueryByCriteria("testCompiledCriteriaValueCount", 0, 15);
+
+        // when
+        compiled.getResultList("testCompiledCriteriaValueCount");
+    }
+
+    @Test
+    public void should_count_without_fetching_rows() {
+        // given
+        final String name = "testCountWithoutFetchingRows";
+        Parent parent = new Parent(name);
+        parent.setOne(new OneToOne(name + "-one"));
+        parent.add(new OneToMany(name + "-1"));
+        parent.add(new OneToMany(name + "-2"));
+
+        entityManager.persist(parent);
+        entityManager.flush();
+
+        // when
+        Long count = parentDao.countWithMany(name, name + "%");
+        Long distinct = parentDao.countDistinctWithMany(name, name + "%");
+        Long none = parentDao.countWithMany(name, "unknown%");
+
+        // then
+        assertEquals(Long.valueOf(2), count);
+        assertEquals(Long.valueOf(1), distinct);
+        assertEquals(Long.valueOf(0), none);
+    }
+
+    @Test
+    public void should_check_existence() {
+        // given
+        final String name = "testCheckExistence";
+        Parent parent = new Parent(name);
+        parent.add(new OneToMany(name + "-1"));
+        parent.add(new OneToMany(name + "-2"));
+
+        entityManager.persist(parent);
+        entityManager.flush();
+
+        // when
+        boolean found = parentDao.existsWithMany(name, name + "%");
+        boolean notFound = parentDao.existsWithMany(name, "unknown%");
+
+        // then
+        assertTrue(found);
+        assertFalse(notFound);
+    }
+
     @Test
     public void should_create_ordered_query() {
         // given
@@ -184,6 +259,28 @@ public class CriteriaTest extends TransactionalTestCase {
         assertEquals(2, result.getMany().size());
     }
 
+    @Test
+    public void should_fetch_join_annotated_attributes() {
+        // given
+        final String name = "testFetchJoinAnnotated";
+        Parent parent = new Parent(name);
+        parent.add(new OneToMany(name + "-1"));
+        parent.add(new OneToMany(name + "-2"));
+
+        entityManager.persist(parent);
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Parent> result = parentDao.findByName(name);
+
+        // then
+        assertEquals(1, result.size());
+        assertTrue(entityManager.getEntityManagerFactory().getPersistenceUnitUtil()
+                .isLoaded(result.get(0), "many"));
+        assertEquals(2, result.get(0).getMany().size());
+    }
+
     @Test
     public void should_create_in_query() {
         // given
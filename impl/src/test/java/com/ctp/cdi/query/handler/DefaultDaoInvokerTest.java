@@ -0,0 +1,65 @@
+package com.ctp.cdi.query.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+
+import com.ctp.cdi.query.test.TransactionalTestCase;
+import com.ctp.cdi.query.test.domain.Simple;
+import com.ctp.cdi.query.test.service.GeneratedSimpleDao;
+import com.ctp.cdi.query.test.service.GeneratedSimpleDao_Impl;
+import com.ctp.cdi.query.test.util.TestDeployments;
+
+public class DefaultDaoInvokerTest extends TransactionalTestCase {
+
+    @Deployment
+    public static Archive<?> deployment() {
+        return TestDeployments.initDeployment()
+                .addClasses(GeneratedSimpleDao.class, GeneratedSimpleDao_Impl.class)
+                .addPackage(Simple.class.getPackage());
+    }
+
+    @Inject
+    private GeneratedSimpleDao dao;
+
+    @Produces
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void should_use_generated_implementation() {
+        assertTrue(dao instanceof GeneratedSimpleDao_Impl);
+    }
+
+    @Test
+    public void should_run_queries_through_generated_implementation() {
+        // given
+        final String name = "testGeneratedDao";
+        dao.save(new Simple(name));
+        dao.save(new Simple(name));
+
+        // when
+        List<Simple> result = dao.findByName(name);
+        Long count = dao.countWithName(name);
+
+        // then
+        assertEquals(2, result.size());
+        assertEquals(Long.valueOf(2), count);
+    }
+
+    @Override
+    protected EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+}
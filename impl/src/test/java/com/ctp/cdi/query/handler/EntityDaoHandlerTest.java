@@ -5,6 +5,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javax.enterprise.inject.Produces;
@@ -21,6 +22,7 @@ import com.ctp.cdi.query.test.TransactionalTestCase;
 import com.ctp.cdi.query.test.domain.Simple;
 import com.ctp.cdi.query.test.domain.Simple_;
 import com.ctp.cdi.query.test.service.ExtendedDaoInterface;
+import com.ctp.cdi.query.test.service.SimpleName;
 import com.ctp.cdi.query.test.util.TestDeployments;
 
 public class EntityDaoHandlerTest extends TransactionalTestCase {
@@ -28,7 +30,7 @@ public class EntityDaoHandlerTest extends TransactionalTestCase {
     @Deployment
     public static Archive<?> deployment() {
         return TestDeployments.initDeployment()
-                .addClasses(ExtendedDaoInterface.class)
+                .addClasses(ExtendedDaoInterface.class, SimpleName.class)
                 .addPackage(Simple.class.getPackage());
     }
 
@@ -82,6 +84,50 @@ public class EntityDaoHandlerTest extends TransactionalTestCase {
         assertEquals(simple.getId(), fetch.getId());
     }
 
+    @Test
+    public void should_save_all_in_batches() throws Exception {
+        // given
+        final String name = "testSaveAll";
+        List<Simple> simples = Arrays.asList(new Simple(name), new Simple(name), new Simple(name));
+
+        // when
+        dao.saveAll(simples, 2);
+
+        // then
+        assertFalse(entityManager.contains(simples.get(0)));
+        assertEquals(Long.valueOf(3), dao.count(new Simple(name), Simple_.name));
+    }
+
+    @Test
+    public void should_save_and_flush_all() throws Exception {
+        // given
+        final String name = "testSaveAndFlushAll";
+        List<Simple> simples = Arrays.asList(new Simple(name), new Simple(name));
+
+        // when
+        List<Simple> result = dao.saveAndFlushAll(simples);
+
+        // then
+        assertEquals(2, result.size());
+        assertNotNull(result.get(0).getId());
+        assertEquals(Long.valueOf(2), dao.count(new Simple(name), Simple_.name));
+    }
+
+    @Test
+    public void should_remove_all() throws Exception {
+        // given
+        final String name = "testRemoveAll";
+        Simple first = createSimple(name);
+        Simple second = createSimple(name);
+        entityManager.clear();
+
+        // when
+        dao.removeAll(Arrays.asList(first, second), 1);
+
+        // then
+        assertEquals(Long.valueOf(0), dao.count(new Simple(name), Simple_.name));
+    }
+
     @Test
     public void should_refresh() throws Exception {
         // given
@@ -297,6 +343,84 @@ public class EntityDaoHandlerTest extends TransactionalTestCase {
         // then
         assertNull(lookup);
     }
+
+    @Test
+    public void should_remove_by_example() {
+        // given
+        createSimple("testRemoveBy", Integer.valueOf(1));
+        createSimple("testRemoveBy", Integer.valueOf(2));
+        createSimple("testRemoveByOther", Integer.valueOf(1));
+        Simple example = new Simple("testRemoveBy");
+
+        // when
+        int removed = dao.removeBy(example, Simple_.name);
+
+        // then
+        assertEquals(2, removed);
+        assertEquals(Long.valueOf(1), dao.count(new Simple("testRemoveByOther"), Simple_.name));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void should_update_by_example() {
+        // given
+        createSimple("testUpdateBy", Integer.valueOf(1));
+        createSimple("testUpdateBy", Integer.valueOf(1));
+        createSimple("testUpdateBy", Integer.valueOf(2));
+        Simple example = new Simple("testUpdateBy");
+        example.setCounter(Integer.valueOf(1));
+        Simple values = new Simple("testUpdateByUpdated");
+        values.setCounter(Integer.valueOf(42));
+
+        // when
+        int updated = dao.updateBy(Simple_.counter, Integer.valueOf(10), example, Simple_.name, Simple_.counter);
+        example.setCounter(Integer.valueOf(2));
+        int copied = dao.updateBy(values, new SingularAttribute[] { Simple_.name, Simple_.counter },
+                example, Simple_.name, Simple_.counter);
+        entityManager.clear();
+
+        // then
+        assertEquals(2, updated);
+        assertEquals(1, copied);
+        Simple tenExample = new Simple("testUpdateBy");
+        tenExample.setCounter(Integer.valueOf(10));
+        assertEquals(Long.valueOf(2), dao.count(tenExample, Simple_.name, Simple_.counter));
+        assertEquals(Long.valueOf(1), dao.count(values, Simple_.name, Simple_.counter));
+    }
+    
+    @Test
+    public void should_find_all_by_id_in_key_order() {
+        // given
+        Simple first = createSimple("testFindAllById1");
+        Simple second = createSimple("testFindAllById2");
+        Simple third = createSimple("testFindAllById3");
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Simple> result = dao.findAllById(Arrays.asList(third.getId(), Long.valueOf(-1), first.getId(),
+                second.getId()));
+
+        // then
+        assertEquals(3, result.size());
+        assertEquals("testFindAllById3", result.get(0).getName());
+        assertEquals("testFindAllById1", result.get(1).getName());
+        assertEquals("testFindAllById2", result.get(2).getName());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_find_projection_by_example() {
+        // given
+        Simple simple = createSimple("testFindProjectionByExample", Integer.valueOf(5));
+
+        // when
+        List<SimpleName> result = dao.findBy(simple, SimpleName.class, Simple_.name, Simple_.counter);
+
+        // then
+        assertEquals(1, result.size());
+        assertEquals("testFindProjectionByExample", result.get(0).getName());
+    }
     
     @Override
     protected EntityManager getEntityManager() {
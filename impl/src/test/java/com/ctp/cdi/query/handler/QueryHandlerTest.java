@@ -3,9 +3,15 @@ package com.ctp.cdi.query.handler;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
@@ -17,20 +23,27 @@ import org.jboss.shrinkwrap.api.Archive;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.ctp.cdi.query.ParallelQueries;
+import com.ctp.cdi.query.ResultCursor;
+import com.ctp.cdi.query.spi.QueryResultCache;
 import com.ctp.cdi.query.test.TransactionalTestCase;
 import com.ctp.cdi.query.test.domain.Simple;
 import com.ctp.cdi.query.test.domain.Simple2;
 import com.ctp.cdi.query.test.domain.SimpleBuilder;
 import com.ctp.cdi.query.test.service.Simple2Dao;
 import com.ctp.cdi.query.test.service.SimpleDao;
+import com.ctp.cdi.query.test.service.SimpleSummary;
 import com.ctp.cdi.query.test.util.TestDeployments;
 
 public class QueryHandlerTest extends TransactionalTestCase {
     
+    private static final String CACHED_BY_NAME = SimpleDao.class.getName() + ".findCachedByName"
+            + Arrays.toString(new Class<?>[] { String.class });
+    
     @Deployment
     public static Archive<?> deployment() {
         return TestDeployments.initDeployment()
-                .addClasses(SimpleDao.class, Simple2Dao.class)
+                .addClasses(SimpleDao.class, Simple2Dao.class, SimpleSummary.class)
                 .addPackage(Simple.class.getPackage());
     }
 
@@ -40,6 +53,12 @@ public class QueryHandlerTest extends TransactionalTestCase {
     @Inject
     private Simple2Dao dao2;
 
+    @Inject
+    private ParallelQueries parallelQueries;
+
+    @Inject
+    private QueryResultCache resultCache;
+
     @Produces
     @PersistenceContext
     private EntityManager entityManager;
@@ -236,6 +255,205 @@ public class QueryHandlerTest extends TransactionalTestCase {
         assertEquals(1, count);
     }
     
+    @Test
+    public void should_stream_with_cursor() {
+        // given
+        final String name = "testStreamWithCursor";
+        builder.createSimple(name, Integer.valueOf(3));
+        builder.createSimple(name, Integer.valueOf(1));
+        builder.createSimple(name, Integer.valueOf(2));
+        entityManager.clear();
+
+        // when
+        ResultCursor<Simple> cursor = dao.streamByName(name);
+        int count = 0;
+        int lastCounter = Integer.MIN_VALUE;
+        try {
+            for (Simple simple : cursor) {
+                assertTrue(simple.getCounter().intValue() > lastCounter);
+                lastCounter = simple.getCounter().intValue();
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        // then
+        assertEquals(3, count);
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void should_iterate_loaded_list() {
+        // given
+        final String name = "testIterateLoadedList";
+        builder.createSimple(name, Integer.valueOf(2));
+        builder.createSimple(name, Integer.valueOf(1));
+
+        // when
+        Iterator<Simple> iterator = dao.findByNameOrderByCounterAsc(name);
+
+        // then
+        assertFalse(iterator instanceof ResultCursor);
+        assertEquals(1, iterator.next().getCounter().intValue());
+        assertEquals(2, iterator.next().getCounter().intValue());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void should_stream_query_result() {
+        // given
+        final String name = "testStreamQueryResult";
+        builder.createSimple(name);
+        builder.createSimple(name);
+
+        // when
+        ResultCursor<Simple> cursor = dao.findByName(name).getResultCursor(1, 0);
+        int count = 0;
+        while (cursor.hasNext()) {
+            assertEquals(name, cursor.next().getName());
+            count++;
+        }
+
+        // then
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void should_map_method_expression_into_projection() {
+        // given
+        final String name = "testProjection";
+        builder.createSimple(name, Integer.valueOf(10));
+        builder.createSimple(name, Integer.valueOf(20));
+
+        // when
+        List<SimpleSummary> result = dao.findByNameOrderByCounterDesc(name);
+
+        // then
+        assertEquals(2, result.size());
+        assertEquals(name, result.get(0).getName());
+        assertEquals(Integer.valueOf(20), result.get(0).getCounter());
+        assertEquals(Integer.valueOf(10), result.get(1).getCounter());
+        assertNull(result.get(0).getDescription());
+    }
+
+    @Test
+    public void should_cache_result_until_dao_write() {
+        // given
+        final String name = "testCacheResult";
+        builder.createSimple(name);
+        List<Object> key = Arrays.<Object>asList(name);
+
+        // when
+        List<Simple> first = dao.findCachedByName(name);
+        Object cached = resultCache.get(CACHED_BY_NAME, key);
+        dao.save(new Simple(name));
+        Object evicted = resultCache.get(CACHED_BY_NAME, key);
+        List<Simple> reloaded = dao.findCachedByName(name);
+
+        // then
+        assertEquals(1, first.size());
+        assertNotNull(cached);
+        assertNull(evicted);
+        assertEquals(2, reloaded.size());
+    }
+
+    @Test
+    public void should_resolve_cached_entities_in_caller_entity_manager() {
+        // given
+        final String name = "testCacheResultEntities";
+        Simple simple = builder.createSimple(name);
+        dao.findCachedByName(name);
+        entityManager.clear();
+
+        // when
+        List<Simple> cached = dao.findCachedByName(name);
+
+        // then
+        assertEquals(1, cached.size());
+        assertEquals(simple.getId(), cached.get(0).getId());
+        assertTrue(entityManager.contains(cached.get(0)));
+    }
+
+    @Test
+    public void should_bypass_cache_after_dao_write_in_transaction() {
+        // given
+        final String name = "testCacheResultPendingWrite";
+        dao.save(new Simple(name));
+
+        // when
+        List<Simple> first = dao.findCachedByName(name);
+        builder.createSimple(name);
+        List<Simple> second = dao.findCachedByName(name);
+
+        // then
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertNull(resultCache.get(CACHED_BY_NAME, Arrays.<Object>asList(name)));
+    }
+
+    @Test
+    public void should_run_async_query_outside_transaction() throws Exception {
+        // given
+        final String name = "testAsyncQuery";
+        builder.createSimple(name);
+
+        // when
+        Future<List<Simple>> future = dao.findAsyncByName(name);
+        List<Simple> result = future.get(10, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(future.isDone());
+        assertNotNull(result);
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void should_run_parallel_queries_in_order() throws Exception {
+        // given
+        final String name = "testParallelQueries";
+        builder.createSimple(name);
+
+        // when
+        List<Object> results = parallelQueries.execute(10, TimeUnit.SECONDS,
+                new Callable<List<Simple>>() {
+                    @Override
+                    public List<Simple> call() {
+                        return dao.findAll();
+                    }
+                },
+                new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return dao.findCountByQuery(name);
+                    }
+                });
+
+        // then
+        assertEquals(2, results.size());
+        assertTrue(results.get(0) instanceof List);
+        assertEquals(Long.valueOf(0), results.get(1));
+    }
+
+    @Test
+    public void should_run_async_query_inline_in_parallel_query() throws Exception {
+        // given
+        final String name = "testNestedAsyncQuery";
+
+        // when
+        List<Object> results = parallelQueries.execute(10, TimeUnit.SECONDS,
+                new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return dao.findAsyncByName(name).isDone();
+                    }
+                });
+
+        // then
+        assertEquals(1, results.size());
+        assertEquals(Boolean.TRUE, results.get(0));
+    }
+
     @Before
     public void setup() {
         builder = new SimpleBuilder(entityManager);
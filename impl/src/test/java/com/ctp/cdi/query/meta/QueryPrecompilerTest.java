@@ -0,0 +1,73 @@
+package com.ctp.cdi.query.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.enterprise.inject.Produces;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+
+import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.Query;
+import com.ctp.cdi.query.test.TransactionalTestCase;
+import com.ctp.cdi.query.test.domain.Simple;
+import com.ctp.cdi.query.test.service.SimpleDao;
+import com.ctp.cdi.query.test.util.TestDeployments;
+
+public class QueryPrecompilerTest extends TransactionalTestCase {
+
+    @Deployment
+    public static Archive<?> deployment() {
+        return TestDeployments.initDeployment()
+                .addClasses(SimpleDao.class)
+                .addPackage(Simple.class.getPackage());
+    }
+
+    @Produces
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void should_precompile_valid_queries() {
+        // given
+        DaoComponent dao = DaoComponentsFactory.instance().lookupComponent(SimpleDao.class);
+
+        // when
+        List<RuntimeException> problems = new QueryPrecompiler().precompile(dao, entityManager);
+
+        // then
+        assertTrue(problems.isEmpty());
+    }
+
+    @Test
+    public void should_report_invalid_query() {
+        // given
+        DaoComponent dao = new DaoComponent(InvalidDao.class, new DaoEntity(Simple.class, Long.class));
+
+        // when
+        List<RuntimeException> problems = new QueryPrecompiler().precompile(dao, entityManager);
+
+        // then
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).getMessage().contains("findByUnknown"));
+    }
+
+    @Override
+    protected EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public abstract static class InvalidDao extends AbstractEntityDao<Simple, Long> {
+
+        @Query("select s from Simple s where s.unknown = ?1")
+        public abstract List<Simple> findByUnknown(String name);
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.ctp.cdi.query.meta.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctp.cdi.query.meta.unit.EntityDescriptorReader.MappingFile;
+import com.ctp.cdi.query.meta.unit.EntityDescriptorReader.Mappings;
+import com.ctp.cdi.query.test.domain.TeeId;
+import com.ctp.cdi.query.test.domain.mapped.MappedTwo;
+
+public class DescriptorSnapshotTest {
+
+    private static final String ORM = "test-custom-orm.xml";
+
+    private File file;
+
+    @Before
+    public void before() throws IOException {
+        file = File.createTempFile("metadata", ".snapshot");
+        file.delete();
+        System.setProperty(DescriptorSnapshot.LOCATION_PROPERTY, file.getAbsolutePath());
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(DescriptorSnapshot.LOCATION_PROPERTY);
+        file.delete();
+    }
+
+    @Test
+    public void should_reuse_parsed_descriptor_after_restart() throws IOException {
+        // given
+        DescriptorSnapshot first = DescriptorSnapshot.load();
+        EntityDescriptorReader firstReader = new EntityDescriptorReader(first);
+        firstReader.readContent(firstReader.readFromClassPath(ORM));
+        first.store();
+
+        // when
+        DescriptorSnapshot second = DescriptorSnapshot.load();
+        EntityDescriptorReader reader = new EntityDescriptorReader(second);
+        Mappings mappings = reader.readContent(reader.readFromClassPath(ORM));
+        MappingFile mappingFile = reader.readFromMappings(mappings);
+
+        // then
+        assertSame(mappings, second.lookup(key(reader)));
+        assertEquals(2, mappingFile.getEntities().size());
+        assertEquals(2, mappingFile.getSuperClasses().size());
+        assertEquals(MappedTwo.class, mappingFile.getEntities().get(0).getEntityClass());
+        assertEquals(TeeId.class, mappingFile.getEntities().get(0).getIdClass());
+    }
+
+    @Test
+    public void should_not_store_without_location() throws IOException {
+        // given
+        System.clearProperty(DescriptorSnapshot.LOCATION_PROPERTY);
+        DescriptorSnapshot snapshot = DescriptorSnapshot.load();
+        EntityDescriptorReader reader = new EntityDescriptorReader(snapshot);
+
+        // when
+        reader.readContent(reader.readFromClassPath(ORM));
+        snapshot.store();
+
+        // then
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void should_ignore_unreadable_snapshot() throws IOException {
+        // given
+        file.createNewFile();
+
+        // when
+        DescriptorSnapshot snapshot = DescriptorSnapshot.load();
+
+        // then
+        assertNull(snapshot.lookup("any"));
+    }
+
+    @Test
+    public void should_ignore_snapshot_with_foreign_classes() throws IOException {
+        // given
+        Map<String, Serializable> content = new HashMap<String, Serializable>();
+        content.put("any", new File("any"));
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        try {
+            out.writeObject(content);
+        } finally {
+            out.close();
+        }
+
+        // when
+        DescriptorSnapshot snapshot = DescriptorSnapshot.load();
+
+        // then
+        assertNull(snapshot.lookup("any"));
+    }
+
+    private String key(EntityDescriptorReader reader) throws IOException {
+        return EntityDescriptorReader.class.getSimpleName() + ":" + reader.readFromClassPath(ORM).getChecksum();
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.ctp.cdi.query.test.service;
+
+import java.util.List;
+
+import com.ctp.cdi.query.Dao;
+import com.ctp.cdi.query.EntityDao;
+import com.ctp.cdi.query.Query;
+import com.ctp.cdi.query.test.domain.Simple;
+
+/**
+ * Implemented by the annotation processor during the test build.
+ */
+@Dao
+public interface GeneratedSimpleDao extends EntityDao<Simple, Long> {
+
+    List<Simple> findByName(String name);
+
+    @Query("select count(s) from Simple s where s.name = ?1")
+    Long countWithName(String name);
+
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import javax.persistence.criteria.JoinType;
 
 import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.FetchJoin;
+import com.ctp.cdi.query.criteria.Criteria;
 import com.ctp.cdi.query.criteria.CriteriaSupport;
 import com.ctp.cdi.query.test.domain.OneToMany;
 import com.ctp.cdi.query.test.domain.OneToMany_;
@@ -49,6 +51,9 @@ public abstract class ParentDao extends AbstractEntityDao<Parent, Long>
                 .getSingleResult();
     }
     
+    @FetchJoin("many")
+    public abstract List<Parent> findByName(String name);
+    
     public List<Parent> fetchByName(String name1, String name2, String name3) {
         return criteria()
                 .in(Parent_.name, name1, name2, name3)
@@ -79,4 +84,27 @@ public abstract class ParentDao extends AbstractEntityDao<Parent, Long>
                 .getResultList();
     }
 
+    public Long countWithMany(String name, String manyName) {
+        return withMany(name, manyName).count();
+    }
+
+    public Long countDistinctWithMany(String name, String manyName) {
+        return withMany(name, manyName).countDistinct();
+    }
+
+    public boolean existsWithMany(String name, String manyName) {
+        return withMany(name, manyName).exists();
+    }
+
+    private Criteria<Parent, Parent> withMany(String name, String manyName) {
+        return criteria()
+                .eq(Parent_.name, name)
+                .join(Parent_.many,
+                        where(OneToMany.class)
+                            .like(OneToMany_.name, manyName)
+                )
+                .fetch(Parent_.one)
+                .orderAsc(Parent_.name);
+    }
+
 }
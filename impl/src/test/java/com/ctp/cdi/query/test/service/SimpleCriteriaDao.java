@@ -3,6 +3,7 @@ package com.ctp.cdi.query.test.service;
 import java.util.List;
 
 import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.criteria.CompiledCriteria;
 import com.ctp.cdi.query.criteria.CriteriaSupport;
 import com.ctp.cdi.query.test.domain.Simple;
 import com.ctp.cdi.query.test.domain.Simple_;
@@ -17,6 +18,13 @@ public abstract class SimpleCriteriaDao extends AbstractEntityDao<Simple, Long>
                 .between(Simple_.counter, from, to)
                 .getResultList();
     }
+
+    public CompiledCriteria<Simple> compiledQueryByCriteria(String name, Integer from, Integer to) {
+        return criteria()
+                .eq(Simple_.name, name)
+                .between(Simple_.counter, from, to)
+                .compile();
+    }
     
     @SuppressWarnings("unchecked")
     public Statistics queryWithSelect(String name) {
@@ -1,17 +1,22 @@
 package com.ctp.cdi.query.test.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 
 import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.Cursor;
 import com.ctp.cdi.query.FirstResult;
 import com.ctp.cdi.query.MaxResults;
 import com.ctp.cdi.query.Modifying;
 import com.ctp.cdi.query.Query;
 import com.ctp.cdi.query.QueryParam;
 import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
 import com.ctp.cdi.query.test.domain.Simple;
 
 public abstract class SimpleDao extends AbstractEntityDao<Simple, Long> {
@@ -44,6 +49,8 @@ public abstract class SimpleDao extends AbstractEntityDao<Simple, Long> {
     
     public abstract List<Simple> findByOrderByCounterAscIdDesc();
     
+    public abstract List<SimpleSummary> findByNameOrderByCounterDesc(String name);
+    
     @Query(sql = "SELECT * from SIMPLE_TABLE s WHERE s.name = ?1")
     public abstract List<Simple> findWithNative(String name);
 
@@ -54,6 +61,22 @@ public abstract class SimpleDao extends AbstractEntityDao<Simple, Long> {
     public abstract QueryResult<Simple> queryResultWithNamed(String name);
     
     public abstract QueryResult<Simple> findByName(String name);
+
+    @Query(value = "select s from Simple s where s.name = ?1 order by s.counter asc", max = 2)
+    public abstract QueryResult<Simple> queryResultLimited(String name);
+    
+    @Cursor(fetchSize = 2, clearEvery = 2)
+    @Query("select s from Simple s where s.name = ?1 order by s.counter asc")
+    public abstract ResultCursor<Simple> streamByName(String name);
+    
+    public abstract Iterator<Simple> findByNameOrderByCounterAsc(String name);
+    
+    @CacheResult
+    @Query("select s from Simple s where s.name = ?1")
+    public abstract List<Simple> findCachedByName(String name);
+    
+    @Query("select s from Simple s where s.name = ?1")
+    public abstract Future<List<Simple>> findAsyncByName(String name);
     
     @Override
     protected abstract EntityManager entityManager();
@@ -0,0 +1,7 @@
+package com.ctp.cdi.query.test.service;
+
+public interface SimpleName {
+
+    String getName();
+
+}
@@ -0,0 +1,20 @@
+package com.ctp.cdi.query.test.service;
+
+public class SimpleSummary {
+
+    private String name;
+    private Integer counter;
+    private String description;
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getCounter() {
+        return counter;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -17,19 +17,27 @@ import org.jboss.shrinkwrap.resolver.api.DependencyResolvers;
 import org.jboss.shrinkwrap.resolver.api.maven.MavenDependencyResolver;
 
 import com.ctp.cdi.query.AbstractEntityDao;
+import com.ctp.cdi.query.CacheResult;
+import com.ctp.cdi.query.Cursor;
 import com.ctp.cdi.query.Dao;
 import com.ctp.cdi.query.EntityDao;
+import com.ctp.cdi.query.FetchJoin;
 import com.ctp.cdi.query.FirstResult;
 import com.ctp.cdi.query.MaxResults;
 import com.ctp.cdi.query.Modifying;
 import com.ctp.cdi.query.NonEntity;
+import com.ctp.cdi.query.Page;
+import com.ctp.cdi.query.ParallelQueries;
 import com.ctp.cdi.query.Query;
 import com.ctp.cdi.query.QueryExtension;
 import com.ctp.cdi.query.QueryParam;
 import com.ctp.cdi.query.QueryResult;
+import com.ctp.cdi.query.ResultCursor;
 import com.ctp.cdi.query.WithEntityManager;
 import com.ctp.cdi.query.audit.AuditEntityListener;
 import com.ctp.cdi.query.builder.QueryBuilder;
+import com.ctp.cdi.query.cache.DefaultQueryResultCache;
+import com.ctp.cdi.query.criteria.CompiledCriteria;
 import com.ctp.cdi.query.criteria.Criteria;
 import com.ctp.cdi.query.criteria.CriteriaSupport;
 import com.ctp.cdi.query.criteria.QueryCriteria;
@@ -40,8 +48,12 @@ import com.ctp.cdi.query.home.DefaultNavigationProvider;
 import com.ctp.cdi.query.home.EntityHome;
 import com.ctp.cdi.query.meta.DaoComponents;
 import com.ctp.cdi.query.param.Parameters;
+import com.ctp.cdi.query.spi.AsyncQueryExecutor;
+import com.ctp.cdi.query.spi.DaoInvoker;
 import com.ctp.cdi.query.spi.DelegateQueryHandler;
+import com.ctp.cdi.query.spi.GeneratedDao;
 import com.ctp.cdi.query.spi.QueryInvocationContext;
+import com.ctp.cdi.query.spi.QueryResultCache;
 import com.ctp.cdi.query.test.TransactionalTestCase;
 import com.ctp.cdi.query.test.domain.AuditedEntity;
 import com.ctp.cdi.query.util.EntityUtils;
@@ -91,18 +103,22 @@ public abstract class TestDeployments {
                 DaoComponents.class.getPackage(),
                 Parameters.class.getPackage(),
                 EntityUtils.class.getPackage(),
-                DefaultNavigationProvider.class.getPackage()
-            ).toArray(new Package[8]);
+                DefaultNavigationProvider.class.getPackage(),
+                DefaultQueryResultCache.class.getPackage()
+            ).toArray(new Package[9]);
     }
 
     public static Archive<?> createApiArchive() {
         return ShrinkWrap.create(JavaArchive.class, "archive.jar")
                 .addClasses(AbstractEntityDao.class, Dao.class, EntityDao.class,
                         FirstResult.class, MaxResults.class, Modifying.class,
-                        NonEntity.class, Query.class, QueryParam.class, QueryResult.class, WithEntityManager.class)
+                        NonEntity.class, Query.class, QueryParam.class, QueryResult.class, WithEntityManager.class,
+                        Cursor.class, ResultCursor.class, Page.class, CacheResult.class, ParallelQueries.class,
+                        FetchJoin.class)
                 .addClasses(Criteria.class, QuerySelection.class, CriteriaSupport.class,
-                        QueryDslSupport.class)
-                .addClasses(DelegateQueryHandler.class, QueryInvocationContext.class)
+                        QueryDslSupport.class, CompiledCriteria.class)
+                .addClasses(DelegateQueryHandler.class, QueryInvocationContext.class, QueryResultCache.class,
+                        AsyncQueryExecutor.class, DaoInvoker.class, GeneratedDao.class)
                 .addPackage(EntityHome.class.getPackage());
     }
     
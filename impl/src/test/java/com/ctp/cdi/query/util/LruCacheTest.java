@@ -0,0 +1,26 @@
+package com.ctp.cdi.query.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void should_evict_least_recently_used() {
+        // given
+        LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+        cache.put("one", 1);
+        cache.put("two", 2);
+
+        // when
+        cache.get("one");
+        cache.put("three", 3);
+
+        // then
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(Integer.valueOf(1), cache.get("one"));
+        Assert.assertNull(cache.get("two"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("three"));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.ctp.cdi.query.util.jpa;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.enterprise.inject.Produces;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+
+import com.ctp.cdi.query.test.TransactionalTestCase;
+import com.ctp.cdi.query.test.domain.Simple;
+import com.ctp.cdi.query.test.util.TestDeployments;
+
+public class QueryStringExtractorFactoryTest extends TransactionalTestCase {
+
+    @Deployment
+    public static Archive<?> deployment() {
+        return TestDeployments.initDeployment()
+                .addPackage(Simple.class.getPackage());
+    }
+
+    @Produces
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void should_extract_named_query_once() {
+        // given
+        QueryStringExtractorFactory factory = QueryStringExtractorFactory.instance();
+
+        // when
+        String first = factory.extractNamed(entityManager, Simple.BY_NAME_LIKE);
+        String second = factory.extractNamed(entityManager, Simple.BY_NAME_LIKE);
+
+        // then
+        assertTrue(first.contains("like"));
+        assertSame(first, second);
+    }
+
+    @Test
+    public void should_select_extractor_once_per_factory() {
+        // given
+        QueryStringExtractorFactory factory = QueryStringExtractorFactory.instance();
+
+        // when
+        QueryStringExtractor first = factory.select(entityManager, entityManager.createNamedQuery(Simple.BY_ID));
+        QueryStringExtractor second = factory.select(entityManager, entityManager.createQuery("select s from Simple s"));
+
+        // then
+        assertSame(first, second);
+    }
+
+    @Override
+    protected EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.ctp.cdi.query.util.jpql;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JpqlQueryTest {
+
+    @Test
+    public void should_drop_order_by_in_count() {
+        // given
+        JpqlQuery query = JpqlQuery.parse("select e from Simple e where e.name = ?1 order by e.counter asc");
+
+        // when
+        String count = query.toCountQuery();
+
+        // then
+        Assert.assertEquals("select count(e) from Simple e where e.name = ?1", count);
+    }
+
+    @Test
+    public void should_count_query_without_select() {
+        Assert.assertEquals("select count(e) from Simple e", JpqlQuery.parse("from Simple e").toCountQuery());
+    }
+
+    @Test
+    public void should_ignore_keywords_in_literals_identifiers_and_subqueries() {
+        // given
+        JpqlQuery query = JpqlQuery.parse("SELECT e FROM Simple e WHERE e.fromDate > :orderBy and e.name <> 'order by' " +
+                "and e.id in (select s.id from Simple s order by s.id) ORDER BY e.id");
+
+        // when
+        String count = query.toCountQuery();
+
+        // then
+        Assert.assertEquals("select count(e) FROM Simple e WHERE e.fromDate > :orderBy and e.name <> 'order by' " +
+                "and e.id in (select s.id from Simple s order by s.id)", count);
+    }
+
+    @Test
+    public void should_count_distinct_projection() {
+        Assert.assertEquals("select count(distinct e.name) from Simple e",
+                JpqlQuery.parse("select distinct e.name from Simple e order by e.name").toCountQuery());
+    }
+
+    @Test
+    public void should_remove_fetch_joins() {
+        // given
+        JpqlQuery left = JpqlQuery.parse("select e from Simple e left outer join fetch e.children where e.enabled = true");
+        JpqlQuery inner = JpqlQuery.parse("select e from Simple e join fetch e.children c where c.name = :name");
+
+        // then
+        Assert.assertEquals("select count(e) from Simple e where e.enabled = true", left.toCountQuery());
+        Assert.assertEquals("select count(distinct e) from Simple e join e.children c where c.name = :name",
+                inner.toCountQuery());
+    }
+
+    @Test
+    public void should_find_from_clause_end() {
+        // given
+        String jpql = "select e from Simple e where e.name = :name order by e.id";
+
+        // when
+        JpqlQuery query = JpqlQuery.parse(jpql);
+
+        // then
+        Assert.assertEquals("Simple", query.getRootEntity());
+        Assert.assertEquals("e", query.getRootAlias());
+        Assert.assertEquals(jpql.indexOf("where"), query.getFromEnd());
+        Assert.assertEquals("select e from Simple e where e.name = :name", query.withoutOrderBy());
+    }
+
+    @Test
+    public void should_add_fetch_joins_behind_from_clause() {
+        // given
+        JpqlQuery query = JpqlQuery.parse("select e from Parent e left join fetch e.one where e.value > ?1 order by e.id");
+
+        // when
+        String fetching = query.withFetchJoins(Arrays.asList("one", "many"), true);
+
+        // then
+        Assert.assertEquals("select distinct e from Parent e left join fetch e.one left join fetch e.many " +
+                "where e.value > ?1 order by e.id", fetching);
+    }
+
+    @Test
+    public void should_add_fetch_joins_to_query_without_select() {
+        Assert.assertEquals("select distinct e from Parent e left join fetch e.many",
+                JpqlQuery.parse("from Parent e").withFetchJoins(Arrays.asList("many"), true));
+        Assert.assertEquals("select e from Parent e left join fetch e.one",
+                JpqlQuery.parse("select e from Parent e").withFetchJoins(Arrays.asList("one"), false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_reject_grouped_query() {
+        JpqlQuery.parse("select e.name, count(e) from Simple e group by e.name").toCountQuery();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_reject_distinct_query_selecting_several_values() {
+        JpqlQuery.parse("select distinct e.name, e.counter from Simple e").toCountQuery();
+    }
+
+    @Test
+    public void should_add_restriction_to_top_level_where_clause() {
+        // given
+        JpqlQuery query = JpqlQuery.parse("select e from Simple e where e.name = 'x order by y' " +
+                "or e.id in (select s.id from Simple s where s.enabled = true) order by e.id");
+
+        // when
+        String restricted = query.withRestriction("e.id > :id");
+
+        // then
+        Assert.assertEquals("select e from Simple e where (e.name = 'x order by y' " +
+                "or e.id in (select s.id from Simple s where s.enabled = true)) and e.id > :id order by e.id",
+                restricted);
+    }
+
+    @Test
+    public void should_add_where_clause_for_restriction() {
+        Assert.assertEquals("select e from Simple e where e.id > :id group by e.id",
+                JpqlQuery.parse("select e from Simple e group by e.id").withRestriction("e.id > :id"));
+    }
+
+    @Test
+    public void should_find_max_position_outside_literals() {
+        Assert.assertEquals(3, JpqlQuery.parse("select e from Simple e where e.a = ?3 and e.b = '?9'").getMaxPosition());
+        Assert.assertEquals(0, JpqlQuery.parse("select e from Simple e where e.a = :a").getMaxPosition());
+    }
+
+}
@@ -0,0 +1,284 @@
+package com.ctp.cdi.query.processor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.ctp.cdi.query.spi.DaoInvoker;
+import com.ctp.cdi.query.spi.GeneratedDao;
+
+/**
+ * Source of the implementation of a single DAO. Each abstract method, declared or
+ * inherited, gets a static {@link java.lang.reflect.Method} resolved once when the
+ * class is loaded, and passes it with the call parameters to the {@link DaoInvoker}.
+ * Qualifiers and scopes of the DAO are copied to the implementation bean.
+ */
+class DaoImplementationWriter {
+
+    private static final String INVOKER_FIELD = "daoInvoker";
+    private static final String[] BEAN_ANNOTATIONS = {
+        "javax.inject.Qualifier", "javax.inject.Scope", "javax.enterprise.context.NormalScope"
+    };
+    private static final String ENTITY_MANAGER = "javax.persistence.EntityManager";
+
+    private final Types types;
+    private final Elements elements;
+    private final TypeElement dao;
+    private final String packageName;
+    private final String simpleName;
+
+    DaoImplementationWriter(ProcessingEnvironment environment, TypeElement dao) {
+        this.types = environment.getTypeUtils();
+        this.elements = environment.getElementUtils();
+        this.dao = dao;
+        this.packageName = elements.getPackageOf(dao).getQualifiedName().toString();
+        this.simpleName = nestedName(dao) + GeneratedDao.SUFFIX;
+    }
+
+    String getQualifiedName() {
+        return packageName.length() == 0 ? simpleName : packageName + "." + simpleName;
+    }
+
+    String write() {
+        List<ExecutableElement> methods = abstractMethods();
+        StringBuilder out = new StringBuilder();
+        if (packageName.length() > 0) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("@").append(GeneratedDao.class.getName()).append("(").append(rawName(dao.asType())).append(".class)\n");
+        for (AnnotationMirror annotation : dao.getAnnotationMirrors()) {
+            if (isBeanAnnotation(annotation)) {
+                out.append(annotation).append("\n");
+            }
+        }
+        writeTyped(out);
+        out.append("@SuppressWarnings(\"unchecked\")\n");
+        out.append("public class ").append(simpleName)
+                .append(dao.getKind() == ElementKind.INTERFACE ? " implements " : " extends ")
+                .append(rawName(dao.asType())).append(" {\n\n");
+        for (int i = 0; i < methods.size(); i++) {
+            writeMethodField(out, i, methods.get(i));
+        }
+        out.append("\n    @javax.inject.Inject\n    private ").append(DaoInvoker.class.getName())
+                .append(" ").append(INVOKER_FIELD).append(";\n");
+        for (int i = 0; i < methods.size(); i++) {
+            writeMethod(out, i, methods.get(i));
+        }
+        out.append("\n    private static java.lang.reflect.Method declaredMethod(Class<?> type, String name, ")
+                .append("Class<?>... parameterTypes) {\n")
+                .append("        try {\n")
+                .append("            return type.getDeclaredMethod(name, parameterTypes);\n")
+                .append("        } catch (NoSuchMethodException e) {\n")
+                .append("            throw new IllegalStateException(\"DAO changed after generating ")
+                .append(simpleName).append("\", e);\n")
+                .append("        }\n")
+                .append("    }\n\n}\n");
+        return out.toString();
+    }
+
+    private void writeMethodField(StringBuilder out, int index, ExecutableElement method) {
+        out.append("    private static final java.lang.reflect.Method METHOD_").append(index)
+                .append(" = declaredMethod(").append(rawName(method.getEnclosingElement().asType()))
+                .append(".class, \"").append(method.getSimpleName()).append("\"");
+        for (VariableElement parameter : method.getParameters()) {
+            out.append(", ").append(rawName(parameter.asType())).append(".class");
+        }
+        out.append(");\n");
+    }
+
+    private void writeMethod(StringBuilder out, int index, ExecutableElement method) {
+        ExecutableType type = (ExecutableType) types.asMemberOf((DeclaredType) dao.asType(), method);
+        out.append("\n    @Override\n    ");
+        if (method.getModifiers().contains(Modifier.PUBLIC)) {
+            out.append("public ");
+        } else if (method.getModifiers().contains(Modifier.PROTECTED)) {
+            out.append("protected ");
+        }
+        writeTypeParameters(out, method);
+        out.append(type.getReturnType()).append(" ").append(method.getSimpleName()).append("(");
+        List<? extends VariableElement> parameters = method.getParameters();
+        List<? extends TypeMirror> parameterTypes = type.getParameterTypes();
+        StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = parameterTypes.get(i);
+            String separator = i > 0 ? ", " : "";
+            if (method.isVarArgs() && i == parameters.size() - 1) {
+                out.append(separator).append(((ArrayType) parameterType).getComponentType()).append("...");
+            } else {
+                out.append(separator).append(parameterType);
+            }
+            out.append(" ").append(parameters.get(i).getSimpleName());
+            arguments.append(separator).append(parameters.get(i).getSimpleName());
+        }
+        out.append(")");
+        List<? extends TypeMirror> thrown = type.getThrownTypes();
+        for (int i = 0; i < thrown.size(); i++) {
+            out.append(i > 0 ? ", " : " throws ").append(thrown.get(i));
+        }
+        String parameterArray = arguments.length() > 0 ? "new Object[] { " + arguments + " }" : "new Object[0]";
+        String invocation = INVOKER_FIELD + ".invoke(this, METHOD_" + index + ", " + parameterArray + ")";
+        out.append(" {\n        ");
+        TypeMirror returnType = type.getReturnType();
+        if (returnType.getKind() == TypeKind.VOID) {
+            out.append(invocation).append(";\n");
+        } else if (returnType.getKind().isPrimitive()) {
+            out.append("return (").append(types.boxedClass((PrimitiveType) returnType).getQualifiedName())
+                    .append(") ").append(invocation).append(";\n");
+        } else {
+            out.append("return (").append(returnType).append(") ").append(invocation).append(";\n");
+        }
+        out.append("    }\n");
+    }
+
+    private void writeTypeParameters(StringBuilder out, ExecutableElement method) {
+        List<? extends TypeParameterElement> parameters = method.getTypeParameters();
+        if (parameters.isEmpty()) {
+            return;
+        }
+        out.append("<");
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeParameterElement parameter = parameters.get(i);
+            out.append(i > 0 ? ", " : "").append(parameter.getSimpleName());
+            String separator = " extends ";
+            for (TypeMirror bound : parameter.getBounds()) {
+                if (!"java.lang.Object".equals(bound.toString())) {
+                    out.append(separator).append(bound);
+                    separator = " & ";
+                }
+            }
+        }
+        out.append("> ");
+    }
+
+    /**
+     * DAOs extending the entity manager must not become entity manager beans, so the
+     * bean types are restricted to the DAO types without it.
+     */
+    private void writeTyped(StringBuilder out) {
+        TypeElement entityManager = elements.getTypeElement(ENTITY_MANAGER);
+        if (entityManager == null || !types.isAssignable(dao.asType(), types.erasure(entityManager.asType()))) {
+            return;
+        }
+        out.append("@javax.enterprise.inject.Typed({ ");
+        boolean first = true;
+        for (TypeElement type : hierarchy()) {
+            if (!type.equals(entityManager)) {
+                out.append(first ? "" : ", ").append(rawName(type.asType())).append(".class");
+                first = false;
+            }
+        }
+        out.append(" })\n");
+    }
+
+    /**
+     * Abstract methods not implemented anywhere in the hierarchy. Declarations closer to
+     * the DAO come first, so overridden declarations further up are skipped.
+     */
+    private List<ExecutableElement> abstractMethods() {
+        List<ExecutableElement> all = new ArrayList<ExecutableElement>();
+        for (TypeElement type : hierarchy()) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (!method.getModifiers().contains(Modifier.STATIC)) {
+                    all.add(method);
+                }
+            }
+        }
+        List<ExecutableElement> result = new ArrayList<ExecutableElement>();
+        Set<String> signatures = new HashSet<String>();
+        for (ExecutableElement method : all) {
+            if (method.getModifiers().contains(Modifier.ABSTRACT) && !isImplemented(method, all)
+                    && signatures.add(signature(method))) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    private boolean isImplemented(ExecutableElement method, List<ExecutableElement> all) {
+        for (ExecutableElement candidate : all) {
+            if (!candidate.getModifiers().contains(Modifier.ABSTRACT)
+                    && candidate.getEnclosingElement().getKind() == ElementKind.CLASS
+                    && elements.overrides(candidate, method, dao)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String signature(ExecutableElement method) {
+        ExecutableType type = (ExecutableType) types.asMemberOf((DeclaredType) dao.asType(), method);
+        StringBuilder result = new StringBuilder(method.getSimpleName());
+        for (TypeMirror parameter : type.getParameterTypes()) {
+            result.append(",").append(types.erasure(parameter));
+        }
+        return result.toString();
+    }
+
+    /**
+     * The DAO and all its super types, classes before interfaces on each level.
+     */
+    private Set<TypeElement> hierarchy() {
+        Set<TypeElement> result = new LinkedHashSet<TypeElement>();
+        List<TypeMirror> pending = new ArrayList<TypeMirror>();
+        pending.add(dao.asType());
+        while (!pending.isEmpty()) {
+            TypeMirror current = pending.remove(0);
+            if (current.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            TypeElement element = (TypeElement) types.asElement(current);
+            if (result.add(element)) {
+                pending.addAll(types.directSupertypes(current));
+            }
+        }
+        return result;
+    }
+
+    private boolean isBeanAnnotation(AnnotationMirror annotation) {
+        Element type = annotation.getAnnotationType().asElement();
+        for (AnnotationMirror meta : type.getAnnotationMirrors()) {
+            String name = ((TypeElement) meta.getAnnotationType().asElement()).getQualifiedName().toString();
+            for (String beanAnnotation : BEAN_ANNOTATIONS) {
+                if (beanAnnotation.equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String rawName(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private static String nestedName(TypeElement type) {
+        Element enclosing = type.getEnclosingElement();
+        if (enclosing instanceof PackageElement) {
+            return type.getSimpleName().toString();
+        }
+        return nestedName((TypeElement) enclosing) + "_" + type.getSimpleName();
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.ctp.cdi.query.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates an implementation for each {@code @Dao} interface or abstract class.
+ * Abstract methods are implemented by passing the call to the
+ * {@link com.ctp.cdi.query.spi.DaoInvoker}, which saves creating a proxy per DAO
+ * at runtime and the proxy introspection on each call.
+ *
+ * DAOs with type parameters, without a visible default constructor or nested
+ * in a non-static type cannot be implemented and keep using runtime proxies.
+ *
+ * The option {@value #INCLUDE_OPTION} restricts the generation to the DAOs whose
+ * qualified name matches the given regular expression.
+ */
+@SupportedAnnotationTypes("com.ctp.cdi.query.Dao")
+@SupportedOptions(DaoProcessor.INCLUDE_OPTION)
+public class DaoProcessor extends AbstractProcessor {
+
+    public static final String INCLUDE_OPTION = "cdiquery.include";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Pattern include = includePattern();
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (isAbstractType(element) && isIncluded((TypeElement) element, include)) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement dao) {
+        String skipped = checkImplementable(dao);
+        if (skipped != null) {
+            processingEnv.getMessager().printMessage(Kind.WARNING,
+                    "No implementation generated for " + dao.getQualifiedName() + ": " + skipped, dao);
+            return;
+        }
+        DaoImplementationWriter writer = new DaoImplementationWriter(processingEnv, dao);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.getQualifiedName(), dao);
+            Writer out = file.openWriter();
+            try {
+                out.write(writer.write());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR,
+                    "Failed to write implementation of " + dao.getQualifiedName() + ": " + e.getMessage(), dao);
+        }
+    }
+
+    private Pattern includePattern() {
+        String include = processingEnv.getOptions().get(INCLUDE_OPTION);
+        return include != null ? Pattern.compile(include) : null;
+    }
+
+    private boolean isIncluded(TypeElement dao, Pattern include) {
+        return include == null || include.matcher(dao.getQualifiedName()).matches();
+    }
+
+    /**
+     * Concrete subclasses, including generated implementations, inherit the annotation
+     * and are skipped.
+     */
+    private boolean isAbstractType(Element element) {
+        if (element.getKind() == ElementKind.INTERFACE) {
+            return true;
+        }
+        return element.getKind() == ElementKind.CLASS && element.getModifiers().contains(Modifier.ABSTRACT);
+    }
+
+    private String checkImplementable(TypeElement dao) {
+        if (!dao.getTypeParameters().isEmpty()) {
+            return "type parameters";
+        }
+        if (dao.getNestingKind() == NestingKind.LOCAL || dao.getNestingKind() == NestingKind.ANONYMOUS) {
+            return "local class";
+        }
+        if (dao.getNestingKind() == NestingKind.MEMBER && dao.getKind() == ElementKind.CLASS
+                && !dao.getModifiers().contains(Modifier.STATIC)) {
+            return "inner class";
+        }
+        for (Element current = dao; current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return "private type";
+            }
+        }
+        if (dao.getKind() == ElementKind.CLASS && !hasDefaultConstructor(dao)) {
+            return "no default constructor";
+        }
+        return null;
+    }
+
+    private boolean hasDefaultConstructor(TypeElement dao) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(dao.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.ctp.cdi.query.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ctp.cdi.query.spi.DaoInvoker;
+import com.ctp.cdi.query.spi.GeneratedDao;
+
+public class DaoProcessorTest {
+
+    private static final String PERSON = "package test;\n"
+            + "public class Person {}\n";
+
+    private static final String INTERFACE_DAO = "package test;\n"
+            + "import java.util.List;\n"
+            + "@com.ctp.cdi.query.Dao\n"
+            + "public interface PersonDao extends com.ctp.cdi.query.EntityDao<Person, Long> {\n"
+            + "    List<Person> findByName(String name);\n"
+            + "    int countByName(String name);\n"
+            + "}\n";
+
+    private static final String ABSTRACT_DAO = "package test;\n"
+            + "@com.ctp.cdi.query.Dao\n"
+            + "public abstract class PersonQueries extends com.ctp.cdi.query.AbstractEntityDao<Person, Long> {\n"
+            + "    public abstract Person findByNameAndAge(String name, Integer age);\n"
+            + "    public Person implemented() { return null; }\n"
+            + "}\n";
+
+    private File output;
+
+    @Before
+    public void createOutput() throws IOException {
+        output = File.createTempFile("dao-processor", "");
+        output.delete();
+        output.mkdirs();
+    }
+
+    @Test
+    public void should_implement_interface_dao() throws Exception {
+        // given
+        ClassLoader loader = compile(PERSON, INTERFACE_DAO);
+        Class<?> dao = loader.loadClass("test.PersonDao");
+
+        // when
+        Class<?> generated = loader.loadClass("test.PersonDao" + GeneratedDao.SUFFIX);
+
+        // then
+        assertTrue(dao.isAssignableFrom(generated));
+        assertFalse(Modifier.isAbstract(generated.getModifiers()));
+        assertEquals(dao, generated.getAnnotation(GeneratedDao.class).value());
+    }
+
+    @Test
+    public void should_pass_declared_method_and_parameters_to_invoker() throws Exception {
+        // given
+        ClassLoader loader = compile(PERSON, INTERFACE_DAO);
+        Class<?> dao = loader.loadClass("test.PersonDao");
+        Object instance = loader.loadClass("test.PersonDao" + GeneratedDao.SUFFIX).newInstance();
+        RecordingInvoker invoker = inject(instance, new RecordingInvoker(Integer.valueOf(3)));
+
+        // when
+        Object result = dao.getMethod("countByName", String.class).invoke(instance, "test");
+
+        // then
+        assertEquals(Integer.valueOf(3), result);
+        assertEquals(dao.getDeclaredMethod("countByName", String.class), invoker.method);
+        assertArrayEquals(new Object[] { "test" }, invoker.parameters);
+    }
+
+    @Test
+    public void should_implement_abstract_methods_of_abstract_dao_only() throws Exception {
+        // given
+        ClassLoader loader = compile(PERSON, ABSTRACT_DAO);
+        Class<?> dao = loader.loadClass("test.PersonQueries");
+
+        // when
+        Class<?> generated = loader.loadClass("test.PersonQueries" + GeneratedDao.SUFFIX);
+
+        // then
+        assertEquals(dao, generated.getSuperclass());
+        assertEquals(generated, generated.getDeclaredMethod("findByNameAndAge", String.class, Integer.class)
+                .getDeclaringClass());
+        assertEquals(dao, generated.getMethod("implemented").getDeclaringClass());
+    }
+
+    @Test
+    public void should_implement_included_daos_only() throws Exception {
+        // given
+        ClassLoader loader = compileIncluding("test\\.PersonQueries", PERSON, INTERFACE_DAO, ABSTRACT_DAO);
+
+        // when
+        Class<?> generated = loader.loadClass("test.PersonQueries" + GeneratedDao.SUFFIX);
+
+        // then
+        assertNotNull(generated);
+        assertFalse(new File(output, "test/PersonDao" + GeneratedDao.SUFFIX + ".class").exists());
+    }
+
+    private ClassLoader compile(String... sources) throws Exception {
+        return compileIncluding(null, sources);
+    }
+
+    private ClassLoader compileIncluding(String include, String... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+        for (String source : sources) {
+            units.add(new Source(source));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        List<String> options = new ArrayList<String>(Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", output.getAbsolutePath(), "-s", output.getAbsolutePath()));
+        if (include != null) {
+            options.add("-A" + DaoProcessor.INCLUDE_OPTION + "=" + include);
+        }
+        CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, units);
+        task.setProcessors(Arrays.asList(new DaoProcessor()));
+        assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        return new URLClassLoader(new URL[] { output.toURI().toURL() }, getClass().getClassLoader());
+    }
+
+    private RecordingInvoker inject(Object dao, RecordingInvoker invoker) throws Exception {
+        Field field = dao.getClass().getDeclaredField("daoInvoker");
+        field.setAccessible(true);
+        field.set(dao, invoker);
+        return invoker;
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        private Source(String code) {
+            super(URI.create("string:///" + name(code).replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        private static String name(String code) {
+            String name = code.replaceAll("(?s).*public (?:abstract )?(?:class|interface) (\\w+).*", "$1");
+            return "test." + name;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static final class RecordingInvoker implements DaoInvoker {
+
+        private final Object result;
+        private Method method;
+        private Object[] parameters;
+
+        private RecordingInvoker(Object result) {
+            this.result = result;
+        }
+
+        @Override
+        public Object invoke(Object dao, Method method, Object[] parameters) {
+            this.method = method;
+            this.parameters = parameters;
+            return result;
+        }
+    }
+
+}